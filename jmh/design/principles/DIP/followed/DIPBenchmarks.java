@@ -0,0 +1,181 @@
+package design.principles.DIP.followed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Rendering INSERT statements (string concatenation plus println against StatementRenderer, per statement and
+// batched) with System.out discarded, so only rendering and locking are measured; registerUser into a LogStore
+// (direct and batched) and findUser (direct and cached), from 1 and 4 threads.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class DIPBenchmarks {
+    private static final int USERS = 100_000;
+    private static final int STATEMENTS = 100;
+
+    @State(Scope.Benchmark)
+    public static class Rendering {
+        @Param({"println", "StatementRenderer", "StatementRenderer.batch"})
+        String path;
+
+        final DataBase sql = new SaveToSqlDB();
+        private PrintStream console;
+
+        @Setup
+        public void silence() {
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown
+        public void restore() {
+            System.setOut(console);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Backends {
+        @Param({"direct", "decorated"})
+        String dataBase;
+
+        UserService service;
+        private Path directory;
+        private LogStore store;
+        private AutoCloseable decorator;
+
+        // "decorated" is BatchingDataBase for registerUser and CachingDataBase for findUser.
+        @Setup
+        public void open(BenchmarkParams benchmark) throws IOException {
+            directory = Files.createTempDirectory("dip-bench");
+            store = LogStore.open(directory, 64 << 20, Duration.ofMinutes(1));
+            DataBase backend = new SaveToLogStore(store);
+            boolean lookups = benchmark.getBenchmark().contains(".findUser");
+            if (lookups) {
+                for (int i = 0; i < USERS; i++)
+                    backend.save("user-" + i);
+            }
+            if (dataBase.equals("direct")) {
+                service = new UserService(backend);
+            } else if (lookups) {
+                CachingDataBase cache = new CachingDataBase(backend, USERS, Duration.ofMinutes(5),
+                        CachingDataBase.WriteMode.WRITE_THROUGH);
+                decorator = cache;
+                service = new UserService(cache);
+            } else {
+                BatchingDataBase batching = new BatchingDataBase(backend, 256, Duration.ofMillis(5), 16_384);
+                decorator = batching;
+                service = new UserService(batching);
+            }
+        }
+
+        @TearDown
+        public void close() throws Exception {
+            if (decorator != null)
+                decorator.close();
+            store.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    // Each thread cycles through its own slice of user names.
+    @State(Scope.Thread)
+    public static class Names {
+        String[] names;
+        int next;
+
+        @Setup
+        public void slice(ThreadParams thread) {
+            names = new String[USERS / 4];
+            for (int i = 0; i < names.length; i++)
+                names[i] = "user-" + (thread.getThreadIndex() * names.length + i) % USERS;
+        }
+
+        String next() {
+            String name = names[next];
+            next = next + 1 == names.length ? 0 : next + 1;
+            return name;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STATEMENTS)
+    public void renderInserts(Rendering rendering, Names names) {
+        render(rendering, names);
+    }
+
+    @Benchmark
+    @Threads(4)
+    @OperationsPerInvocation(STATEMENTS)
+    public void renderInsertsOn4Threads(Rendering rendering, Names names) {
+        render(rendering, names);
+    }
+
+    @Benchmark
+    public void registerUser(Backends backends, Names names) {
+        backends.service.registerUser(names.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void registerUserOn4Threads(Backends backends, Names names) {
+        backends.service.registerUser(names.next());
+    }
+
+    @Benchmark
+    public boolean findUser(Backends backends, Names names) {
+        return backends.service.findUser(names.next()).isPresent();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean findUserOn4Threads(Backends backends, Names names) {
+        return backends.service.findUser(names.next()).isPresent();
+    }
+
+    // "println" is how SaveToSqlDB.save rendered its statements before StatementRenderer.
+    private static void render(Rendering rendering, Names names) {
+        switch (rendering.path) {
+            case "println" -> {
+                for (int i = 0; i < STATEMENTS; i++)
+                    System.out.println("Executing SQL Query: INSERT INTO users VALUES('" + names.next() + "');");
+            }
+            case "StatementRenderer" -> {
+                for (int i = 0; i < STATEMENTS; i++)
+                    rendering.sql.save(names.next());
+            }
+            default -> StatementRenderer.batch(() -> {
+                for (int i = 0; i < STATEMENTS; i++)
+                    rendering.sql.save(names.next());
+            });
+        }
+    }
+}
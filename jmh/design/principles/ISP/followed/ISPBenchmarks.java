@@ -0,0 +1,128 @@
+package design.principles.ISP.followed;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Total area of a mixed shape list: per-object areaValue() calls against ShapeBatch's per-type loops and
+// ShapeColumns' column kernels, over list sizes, plus ShapeColumns.areas() into an output array with the scalar and
+// the Vector API kernels (`kernels`; "vector" needs the jar built with -Pjmh,vector).
+// The *Mix benchmarks shuffle `shapes` shapes of 1, 2 or 3 concrete types (TwoDimensionalShape is sealed to three)
+// so the per-object call site is monomorphic, bimorphic or megamorphic. Every (benchmark, types) pair runs in its
+// own fork, so one mix's type profile cannot leak into the next.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector"})
+public class ISPBenchmarks {
+    @State(Scope.Benchmark)
+    public static class Shapes {
+        @Param({"1000", "100000", "1000000"})
+        int size;
+
+        @Param({"scalar", "vector"})
+        String kernels;
+
+        List<TwoDimensionalShape> list;
+        ShapeBatch batch;
+        ShapeColumns columns;
+        double[] areas;
+
+        @Setup
+        public void fill() {
+            list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                list.add(shape(i % 3, 1 + i % 100 / 10.0));
+            batch = ShapeBatch.of(list);
+            ShapeKernels loaded = ShapeKernels.load();
+            if (kernels.equals("vector") && loaded == ShapeKernels.SCALAR)
+                throw new IllegalStateException("Vector kernels are not in this jar; build it with -Pjmh,vector.");
+            columns = new ShapeColumns(size, kernels.equals("vector") ? loaded : ShapeKernels.SCALAR);
+            list.forEach(columns::add);
+            areas = new double[size];
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Mix {
+        @Param({"1", "2", "3"})
+        int types;
+
+        @Param({"10000000"})
+        int shapes;
+
+        List<TwoDimensionalShape> list;
+        ShapeBatch batch;
+
+        @Setup
+        public void fill() {
+            list = new ArrayList<>(shapes);
+            for (int i = 0; i < shapes; i++)
+                list.add(shape(i % types, 1 + i % 100 / 10.0));
+            Collections.shuffle(list, new Random(42));
+            batch = ShapeBatch.of(list);
+        }
+    }
+
+    @Benchmark
+    public double perObject(Shapes shapes) {
+        return totalArea(shapes.list);
+    }
+
+    @Benchmark
+    public double shapeBatch(Shapes shapes) {
+        return shapes.batch.totalArea();
+    }
+
+    @Benchmark
+    public double shapeColumns(Shapes shapes) {
+        return shapes.columns.totalArea();
+    }
+
+    @Benchmark
+    public void shapeColumnsAreas(Shapes shapes, Blackhole blackhole) {
+        shapes.columns.areas(shapes.areas);
+        blackhole.consume(shapes.areas);
+    }
+
+    @Benchmark
+    public double perObjectMix(Mix mix) {
+        return totalArea(mix.list);
+    }
+
+    @Benchmark
+    public double shapeBatchMix(Mix mix) {
+        return mix.batch.totalArea();
+    }
+
+    private static double totalArea(List<TwoDimensionalShape> shapes) {
+        double total = 0;
+        for (TwoDimensionalShape shape : shapes)
+            total += shape.areaValue();
+        return total;
+    }
+
+    private static TwoDimensionalShape shape(int type, double size) {
+        return switch (type) {
+            case 0 -> new Square(size);
+            case 1 -> new Rectangle(size, size + 1);
+            default -> new Cube(size);
+        };
+    }
+}
@@ -0,0 +1,139 @@
+package design.principles.LSP;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Deposit/withdraw pairs on the balance engines from 1 and 4 threads, sharing one account or each on its own,
+// and the three ways of driving a mixed account list: BankClient catching UnsupportedOperationException,
+// BanksClient's instanceof checks and CapabilityBankClient's up-front classification (output discarded).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LSPBenchmarks {
+    @State(Scope.Benchmark)
+    public static class SharedBalance {
+        final AtomicBalance balance = new AtomicBalance(1_000_000L);
+    }
+
+    @State(Scope.Thread)
+    public static class OwnBalance {
+        final AtomicBalance balance = new AtomicBalance(1_000_000L);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Store {
+        final AccountStore store = new AccountStore(64);
+
+        @Setup
+        public void open() {
+            for (int i = 0; i < 64; i++)
+                store.openCents(AccountType.SAVING, 1_000_000L);
+        }
+    }
+
+    // Each thread works on its own account of the shared store.
+    @State(Scope.Thread)
+    public static class StoreAccount {
+        int id;
+
+        @Setup
+        public void pick(ThreadParams thread) {
+            id = thread.getThreadIndex();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class MixedAccounts {
+        @Param({"300", "30000"})
+        int size;
+
+        BankClient exceptions;
+        BanksClient typeChecks;
+        CapabilityBankClient capabilities;
+        private PrintStream console;
+
+        @Setup
+        public void build() {
+            List<Account> accounts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                accounts.add(switch (i % 3) {
+                    case 0 -> new SavingsAccount(1000);
+                    case 1 -> new CurrentAccount(2000);
+                    default -> new FixedDepositAccount();
+                });
+            exceptions = new BankClient(accounts);
+            typeChecks = new BanksClient(accounts);
+            capabilities = CapabilityBankClient.of(accounts);
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown
+        public void restore() {
+            System.setOut(console);
+        }
+    }
+
+    @Benchmark
+    public long atomicBalanceShared(SharedBalance shared) {
+        return shared.balance.deposit(100) + shared.balance.withdraw(100);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long atomicBalanceSharedOn4Threads(SharedBalance shared) {
+        return shared.balance.deposit(100) + shared.balance.withdraw(100);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long atomicBalancePerThreadOn4Threads(OwnBalance own) {
+        return own.balance.deposit(100) + own.balance.withdraw(100);
+    }
+
+    @Benchmark
+    public long accountStore(Store store, StoreAccount account) {
+        return store.store.deposit(account.id, 100) + store.store.withdraw(account.id, 100);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long accountStorePerThreadOn4Threads(Store store, StoreAccount account) {
+        return store.store.deposit(account.id, 100) + store.store.withdraw(account.id, 100);
+    }
+
+    @Benchmark
+    public void dispatchByException(MixedAccounts accounts) {
+        accounts.exceptions.performTransactions();
+    }
+
+    @Benchmark
+    public void dispatchByInstanceof(MixedAccounts accounts) {
+        accounts.typeChecks.performTransactions();
+    }
+
+    @Benchmark
+    public void dispatchByCapability(MixedAccounts accounts) {
+        accounts.capabilities.performTransactions();
+    }
+}
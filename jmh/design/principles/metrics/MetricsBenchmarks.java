@@ -0,0 +1,74 @@
+package design.principles.metrics;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one start()/stop() pair from 1 and 4 threads, recording into a shared or a per-thread operation, at the
+// default sampling and with every call timed; and of the histogram update alone (without the clock reads).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MetricsBenchmarks {
+    @State(Scope.Benchmark)
+    public static class Shared {
+        final OperationMetrics operation = Metrics.operation("bench.shared");
+    }
+
+    @State(Scope.Thread)
+    public static class Own {
+        OperationMetrics operation;
+
+        @Setup
+        public void register(ThreadParams thread) {
+            operation = Metrics.operation("bench.thread." + thread.getThreadIndex());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Histogram {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        long value;
+    }
+
+    @Benchmark
+    public void histogramRecord(Histogram state) {
+        state.histogram.record(state.value++ & 0xFFFF);
+    }
+
+    @Benchmark
+    public void startStop(Own own) {
+        own.operation.stop(own.operation.start());
+    }
+
+    @Benchmark
+    @Fork(value = 2, jvmArgsAppend = "-Ddesign.principles.metrics.sampleEvery=1")
+    public void startStopEveryCallTimed(Own own) {
+        own.operation.stop(own.operation.start());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void startStopSharedOn4Threads(Shared shared) {
+        shared.operation.stop(shared.operation.start());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void startStopPerThreadOn4Threads(Own own) {
+        own.operation.stop(own.operation.start());
+    }
+}
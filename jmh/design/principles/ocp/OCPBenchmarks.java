@@ -0,0 +1,85 @@
+package design.principles.ocp;
+
+import design.principles.DIP.followed.LogStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// calculateTotal and whole-cart SaveProduct.save() for the file and log-store sinks, over cart sizes.
+// The sinks print a summary per save, so System.out is silenced for the trial.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class OCPBenchmarks {
+    @State(Scope.Benchmark)
+    public static class Sinks {
+        @Param({"100", "10000", "100000"})
+        int size;
+
+        ShoppingCart cart;
+        SaveProduct toFile;
+        SaveProduct toStore;
+        private Path directory;
+        private LogStore store;
+        private PrintStream console;
+
+        @Setup
+        public void open() throws IOException {
+            cart = new ShoppingCart();
+            for (int i = 0; i < size; i++)
+                cart.addProduct(new Product("Product-" + i, 0.10 + i % 1000 / 100.0));
+            directory = Files.createTempDirectory("ocp-bench");
+            store = LogStore.open(directory.resolve("store"), 64 << 20, Duration.ofMinutes(1));
+            toFile = new SaveProductToFile(cart, directory.resolve("products.bin"));
+            toStore = new SaveProductToLogStore(cart, store);
+            console = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+
+        @TearDown
+        public void close() throws IOException {
+            System.setOut(console);
+            store.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public double calculateTotal(Sinks sinks) {
+        return sinks.cart.calculateTotal();
+    }
+
+    @Benchmark
+    public void saveToFile(Sinks sinks) {
+        sinks.toFile.save();
+    }
+
+    @Benchmark
+    public void saveToLogStore(Sinks sinks) {
+        sinks.toStore.save();
+    }
+}
@@ -0,0 +1,96 @@
+package design.principles.srp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// calculateTotal over cart sizes (list sum versus running total), and adds into one shared cart from 1 and 4
+// threads: the lock-free ConcurrentShopCart against a ShopCart behind a lock.
+// Carts are replaced every iteration, so the add benchmarks measure appends and not an ever-growing heap.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class SRPBenchmarks {
+    @State(Scope.Benchmark)
+    public static class Carts {
+        @Param({"100", "10000", "1000000"})
+        int size;
+
+        ShoppingCart list;
+        ShopCart running;
+
+        @Setup
+        public void fill() {
+            list = new ShoppingCart();
+            running = new ShopCart();
+            for (int i = 0; i < size; i++) {
+                Product product = new Product("Product-" + i % 100, 0.10 + i % 1000 / 100.0);
+                list.addProduct(product);
+                running.addProduct(product);
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SharedCarts {
+        final Product product = new Product("Laptop", 50000);
+        ConcurrentShopCart concurrent;
+        ShopCart locked;
+
+        @Setup(Level.Iteration)
+        public void empty() {
+            concurrent = new ConcurrentShopCart();
+            locked = new ShopCart();
+        }
+    }
+
+    @Benchmark
+    public double listTotal(Carts carts) {
+        return carts.list.calculateTotal();
+    }
+
+    @Benchmark
+    public double runningTotal(Carts carts) {
+        return carts.running.calculateTotal();
+    }
+
+    @Benchmark
+    public void concurrentAdd(SharedCarts carts) {
+        carts.concurrent.addProduct(carts.product);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void concurrentAddOn4Threads(SharedCarts carts) {
+        carts.concurrent.addProduct(carts.product);
+    }
+
+    @Benchmark
+    public void lockedAdd(SharedCarts carts) {
+        synchronized (carts.locked) {
+            carts.locked.addProduct(carts.product);
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void lockedAddOn4Threads(SharedCarts carts) {
+        synchronized (carts.locked) {
+            carts.locked.addProduct(carts.product);
+        }
+    }
+}
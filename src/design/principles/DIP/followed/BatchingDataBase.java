@@ -0,0 +1,189 @@
+package design.principles.DIP.followed;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Decorator over any DataBase: buffers saves and hands them to the backend as multi-row saveAll batches.
+// A batch is written once it reaches batchSize or its oldest record has waited maxDelay.
+// save() blocks while `capacity` records are queued, so a slow backend slows producers instead of growing memory.
+// A backend error is reported once, to the next flush() or close(), and then cleared; later batches are still written.
+final class BatchingDataBase implements DataBase, AutoCloseable {
+    private final DataBase delegate;
+    private final int batchSize;
+    private final long maxDelayNanos;
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition readyToWrite = lock.newCondition();
+    private final Condition written = lock.newCondition();
+
+    // Guarded by lock.
+    private final ArrayDeque<Queued> queue = new ArrayDeque<>();
+    private long accepted;
+    private long persisted;
+    private long flushTarget;
+    private boolean closed;
+    private RuntimeException failure;
+
+    private final Thread flusher;
+
+    BatchingDataBase(DataBase delegate, int batchSize, Duration maxDelay, int capacity) {
+        if (batchSize <= 0 || capacity < batchSize)
+            throw new IllegalArgumentException("batchSize must be positive and capacity at least batchSize.");
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.capacity = capacity;
+        this.flusher = new Thread(this::runFlusher, "batching-db-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    @Override
+    public void save(String data) {
+        lock.lock();
+        try {
+            while (queue.size() == capacity && !closed)
+                notFull.awaitUninterruptibly();
+            if (closed)
+                throw new IllegalStateException("BatchingDataBase is closed.");
+            queue.addLast(new Queued(data, System.nanoTime()));
+            accepted++;
+            if (queue.size() >= batchSize)
+                readyToWrite.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        data.forEach(this::save);
+    }
+
+    // Reads go straight to the backend, so records still queued here are not visible yet.
+    @Override
+    public Optional<String> find(String data) {
+        return delegate.find(data);
+    }
+
+    // Blocks until every record accepted before this call has been handed to the backend.
+    public void flush() {
+        lock.lock();
+        try {
+            long target = accepted;
+            flushTarget = Math.max(flushTarget, target);
+            readyToWrite.signal();
+            while (persisted < target && failure == null)
+                written.awaitUninterruptibly();
+            throwIfFailed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Stops accepting records, writes out everything still queued and waits for the flusher to finish.
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            readyToWrite.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            throwIfFailed();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            List<String> batch;
+            lock.lock();
+            try {
+                batch = awaitBatch();
+                if (batch == null)
+                    return;
+            } finally {
+                lock.unlock();
+            }
+            RuntimeException error = null;
+            try {
+                delegate.saveAll(batch);
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            lock.lock();
+            try {
+                persisted += batch.size();
+                if (error != null && failure == null)
+                    failure = error;
+                written.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Waits (holding lock) until a batch is due and removes it from the queue; null once closed and drained.
+    private List<String> awaitBatch() {
+        while (true) {
+            if (queue.isEmpty()) {
+                if (closed)
+                    return null;
+                readyToWrite.awaitUninterruptibly();
+                continue;
+            }
+            long waited = System.nanoTime() - queue.peekFirst().queuedAt();
+            boolean due = queue.size() >= batchSize || waited >= maxDelayNanos
+                    || closed || flushTarget > persisted;
+            if (due)
+                return takeBatch();
+            try {
+                readyToWrite.await(maxDelayNanos - waited, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                // The flusher is only interrupted on JVM shutdown; write what is queued and carry on.
+                return takeBatch();
+            }
+        }
+    }
+
+    private List<String> takeBatch() {
+        int size = Math.min(batchSize, queue.size());
+        List<String> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            batch.add(queue.pollFirst().data());
+        notFull.signalAll();
+        return batch;
+    }
+
+    private void throwIfFailed() {
+        RuntimeException reported = failure;
+        if (reported == null)
+            return;
+        failure = null;
+        throw new IllegalStateException("Batched save failed.", reported);
+    }
+
+    private record Queued(String data, long queuedAt) {
+    }
+}
@@ -0,0 +1,211 @@
+package design.principles.DIP.followed;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+// Read-through cache in front of any DataBase. Entries live in LRU shards (a lock per shard, so lookups on
+// different shards do not contend) and expire `ttl` after they were cached. Small caches get fewer shards (one below
+// 32 entries) so every shard holds at least 16 entries and together they never exceed maxEntries.
+// Eviction.LRU always admits the new entry; Eviction.TINY_LFU keeps a per-shard frequency sketch and only lets a new
+// entry displace the LRU victim if it has been asked for more often, so one-off lookups cannot flush the hot set.
+// WRITE_THROUGH saves reach the backend before save() returns; WRITE_BEHIND hands them to a BatchingDataBase,
+// so the backend sees multi-row batches later and a record evicted before its batch lands reads as not found.
+final class CachingDataBase implements DataBase, AutoCloseable {
+    enum WriteMode { WRITE_THROUGH, WRITE_BEHIND }
+
+    enum Eviction { LRU, TINY_LFU }
+
+    private static final int MAX_SHARDS = 16;
+    private static final int MIN_SHARD_ENTRIES = 16;
+
+    private final DataBase delegate;
+    private final DataBase writer;
+    private final long ttlNanos;
+    private final boolean frequencyAdmission;
+    private final Shard[] shards;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    CachingDataBase(DataBase delegate, int maxEntries, Duration ttl, WriteMode mode) {
+        this(delegate, maxEntries, ttl, mode, Eviction.LRU);
+    }
+
+    CachingDataBase(DataBase delegate, int maxEntries, Duration ttl, WriteMode mode, Eviction eviction) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("maxEntries must be positive.");
+        this.delegate = delegate;
+        this.writer = mode == WriteMode.WRITE_BEHIND
+                ? new BatchingDataBase(delegate, 256, Duration.ofMillis(20), 16_384)
+                : delegate;
+        this.ttlNanos = ttl.toNanos();
+        this.frequencyAdmission = eviction == Eviction.TINY_LFU;
+        int shardCount = Math.min(MAX_SHARDS, Math.max(1, Integer.highestOneBit(maxEntries / MIN_SHARD_ENTRIES)));
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = new Shard(maxEntries / shardCount);
+    }
+
+    // Cached only once the writer has taken the record, so a failed save leaves nothing for find() to return.
+    @Override
+    public void save(String data) {
+        writer.save(data);
+        cache(data, data);
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        writer.saveAll(data);
+        data.forEach(record -> cache(record, record));
+    }
+
+    @Override
+    public Optional<String> find(String data) {
+        Shard shard = shard(data);
+        synchronized (shard) {
+            if (frequencyAdmission)
+                shard.sketch.increment(data);
+            Cached cached = shard.entries.get(data);
+            if (cached != null) {
+                if (System.nanoTime() - cached.cachedAt < ttlNanos) {
+                    hits.increment();
+                    return Optional.of(cached.value);
+                }
+                shard.entries.remove(data);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        Optional<String> found = delegate.find(data);
+        found.ifPresent(value -> cache(data, value));
+        return found;
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    long evictions() {
+        return evictions.sum();
+    }
+
+    long expirations() {
+        return expirations.sum();
+    }
+
+    // New entries the TINY_LFU policy turned away because the LRU victim was more popular.
+    long rejections() {
+        return rejections.sum();
+    }
+
+    double hitRate() {
+        long hits = hits();
+        long lookups = hits + misses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    // Drains pending write-behind batches.
+    @Override
+    public void close() {
+        if (writer instanceof BatchingDataBase batching)
+            batching.close();
+    }
+
+    private void cache(String key, String value) {
+        Shard shard = shard(key);
+        synchronized (shard) {
+            Map<String, Cached> entries = shard.entries;
+            if (frequencyAdmission && entries.size() >= shard.capacity && !entries.containsKey(key)) {
+                String victim = entries.keySet().iterator().next();
+                if (shard.sketch.frequency(key) <= shard.sketch.frequency(victim)) {
+                    rejections.increment();
+                    return;
+                }
+                entries.remove(victim);
+                evictions.increment();
+            }
+            entries.put(key, new Cached(value, System.nanoTime()));
+            if (entries.size() > shard.capacity) {
+                entries.remove(entries.keySet().iterator().next());
+                evictions.increment();
+            }
+        }
+    }
+
+    // Picked by the top bits of a scrambled hash: the shard's HashMap buckets by the low bits of hashCode(), and if the
+    // shard took those too, every key in a shard would crowd into 1/shards of its buckets.
+    private Shard shard(String key) {
+        long scrambled = (key.hashCode() * 0x9E3779B9) & 0xFFFFFFFFL;
+        return shards[(int) (scrambled * shards.length >>> 32)];
+    }
+
+    private record Cached(String value, long cachedAt) {
+    }
+
+    // Access-ordered, so the first key is the least recently used. Guarded by the shard's monitor.
+    private final class Shard {
+        private final LinkedHashMap<String, Cached> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private final int capacity;
+        private final FrequencySketch sketch;
+
+        Shard(int capacity) {
+            this.capacity = capacity;
+            this.sketch = frequencyAdmission ? new FrequencySketch(capacity) : null;
+        }
+    }
+
+    // Count-min sketch of recent lookups: four rows of counters, one counter per key in each, picked by a differently
+    // seeded multiplicative hash, and the estimate is the smallest. All counters are halved once `sampleSize` lookups
+    // have been recorded, so popularity fades and the cache follows a shifting hot set.
+    private static final class FrequencySketch {
+        private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+        private final int[] counters;
+        private final int rowWidth;
+        private final int rowShift;
+        private final int sampleSize;
+        private int samples;
+
+        FrequencySketch(int capacity) {
+            this.rowWidth = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+            this.rowShift = Integer.numberOfLeadingZeros(rowWidth) + 1;
+            this.counters = new int[rowWidth * SEEDS.length];
+            this.sampleSize = Math.max(16, capacity) * 10;
+        }
+
+        void increment(String key) {
+            int hash = key.hashCode();
+            for (int i = 0; i < SEEDS.length; i++)
+                counters[index(hash, i)]++;
+            if (++samples == sampleSize) {
+                for (int i = 0; i < counters.length; i++)
+                    counters[i] >>>= 1;
+                samples /= 2;
+            }
+        }
+
+        int frequency(String key) {
+            int hash = key.hashCode();
+            int min = Integer.MAX_VALUE;
+            for (int i = 0; i < SEEDS.length; i++)
+                min = Math.min(min, counters[index(hash, i)]);
+            return min;
+        }
+
+        // The top bits of the product are the well-mixed ones, so keys with nearby hash codes land far apart.
+        private int index(int hash, int row) {
+            int h = (hash ^ (hash >>> 16)) * SEEDS[row];
+            return row * rowWidth + (h >>> rowShift);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package design.principles.DIP.followed;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checks for BatchingDataBase. Full run: with maxDelay out of reach, n records cost exactly ceil(n / batchSize)
+// backend calls, every batch but the last one full, and arrive in order. Max delay: a record left queued behind a full
+// batch while the backend was busy must still reach it within maxDelay of its own save(), not of the batch before it.
+// Failure: a backend error surfaces from the next flush() only; later batches are written and flush cleanly.
+public class DIPBatching {
+    public static void main(String[] args) throws InterruptedException {
+        checkFullRunCalls();
+        checkMaxDelay();
+        checkFailure();
+        System.out.println("BatchingDataBase checks passed");
+    }
+
+    private static void checkFullRunCalls() {
+        int records = 10_007;
+        int batchSize = 256;
+        AtomicInteger calls = new AtomicInteger();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        List<String> saved = new CopyOnWriteArrayList<>();
+        DataBase countingBackend = new DataBase() {
+            @Override
+            public void save(String data) {
+                saveAll(List.of(data));
+            }
+
+            @Override
+            public void saveAll(List<String> data) {
+                calls.incrementAndGet();
+                batchSizes.add(data.size());
+                saved.addAll(data);
+            }
+        };
+        List<String> expected = new ArrayList<>(records);
+        try (BatchingDataBase batching = new BatchingDataBase(countingBackend, batchSize, Duration.ofHours(1), 1_024)) {
+            for (int i = 0; i < records; i++) {
+                expected.add("user-" + i);
+                batching.save("user-" + i);
+            }
+        }
+        int expectedCalls = (records + batchSize - 1) / batchSize;
+        System.out.printf("%,d records reached the backend in %,d calls (expected %,d)%n", saved.size(), calls.get(),
+                expectedCalls);
+        if (calls.get() != expectedCalls)
+            throw new IllegalStateException(calls.get() + " backend calls for " + records + " records, expected "
+                    + expectedCalls + "; batch sizes " + batchSizes);
+        for (int i = 0; i < batchSizes.size() - 1; i++)
+            if (batchSizes.get(i) != batchSize)
+                throw new IllegalStateException("Batch " + i + " held " + batchSizes.get(i) + " records, not "
+                        + batchSize + ".");
+        if (!saved.equals(expected))
+            throw new IllegalStateException("Records were lost or reordered on the way to the backend.");
+    }
+
+    private static void checkMaxDelay() throws InterruptedException {
+        long maxDelayMillis = 300;
+        Map<String, Long> savedAt = new ConcurrentHashMap<>();
+        DataBase slowBackend = new DataBase() {
+            @Override
+            public void save(String data) {
+                saveAll(List.of(data));
+            }
+
+            @Override
+            public void saveAll(List<String> data) {
+                long now = System.nanoTime();
+                data.forEach(record -> savedAt.put(record, now));
+                sleep(100);
+            }
+        };
+        Map<String, Long> queuedAt = new ConcurrentHashMap<>();
+        try (BatchingDataBase batching = new BatchingDataBase(slowBackend, 4, Duration.ofMillis(maxDelayMillis), 64)) {
+            for (int i = 0; i < 4; i++) // a full batch: the backend is busy with it for 100 ms
+                save(batching, "first-" + i, queuedAt);
+            Thread.sleep(10);
+            for (int i = 0; i < 5; i++) // four more fill the next batch; the fifth is left queued behind it
+                save(batching, "second-" + i, queuedAt);
+            Thread.sleep(2 * maxDelayMillis); // no flush(): it would force the left-over record out early
+            batching.flush();
+        }
+        // The backend is idle again long before the left-over record is due, so it must go out at its own
+        // deadline, ~300 ms after its save(), not ~300 ms after the batch in front of it was taken.
+        long waitedMillis = (savedAt.get("second-4") - queuedAt.get("second-4")) / 1_000_000;
+        long bound = maxDelayMillis + 50;
+        System.out.printf("left-over record reached the backend after %,d ms (bound %,d ms)%n", waitedMillis, bound);
+        if (waitedMillis > bound)
+            throw new IllegalStateException("Record waited " + waitedMillis + " ms, more than " + bound + " ms.");
+    }
+
+    private static void checkFailure() {
+        AtomicBoolean failNext = new AtomicBoolean(true);
+        List<String> saved = new CopyOnWriteArrayList<>();
+        DataBase flakyBackend = new DataBase() {
+            @Override
+            public void save(String data) {
+                saved.add(data);
+            }
+
+            @Override
+            public void saveAll(List<String> data) {
+                if (failNext.getAndSet(false))
+                    throw new IllegalStateException("backend unavailable");
+                saved.addAll(data);
+            }
+        };
+        try (BatchingDataBase batching = new BatchingDataBase(flakyBackend, 2, Duration.ofMillis(20), 16)) {
+            batching.saveAll(List.of("lost-1", "lost-2"));
+            try {
+                batching.flush();
+                throw new IllegalStateException("flush() did not report the backend failure.");
+            } catch (IllegalStateException e) {
+                if (e.getCause() == null || !"backend unavailable".equals(e.getCause().getMessage()))
+                    throw e;
+            }
+            batching.saveAll(List.of("kept-1", "kept-2", "kept-3"));
+            batching.flush(); // must not rethrow the earlier, already reported failure
+        }
+        if (!saved.equals(List.of("kept-1", "kept-2", "kept-3")))
+            throw new IllegalStateException("Unexpected records after a failed batch: " + saved);
+        System.out.println("failed batch reported once; later records saved: " + saved);
+    }
+
+    private static void save(BatchingDataBase batching, String record, Map<String, Long> queuedAt) {
+        queuedAt.put(record, System.nanoTime());
+        batching.save(record);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package design.principles.DIP.followed;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+// A replay-heavy registration feed (every name appears `copies` times) into a counting backend:
+// one registerUser call per input name against registerUsers(Stream) with off-heap deduplication.
+public class DIPBulkRegistration {
+    public static void main(String[] args) {
+        long distinct = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        int copies = 3;
+
+        CountingDataBase perCall = new CountingDataBase();
+        UserService service = new UserService(perCall);
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        names(distinct, copies).forEach(service::registerUser);
+        long perCallNanos = System.nanoTime() - start;
+        System.out.printf("registerUser x %,d: %,d ms (%,.0f names/s), %,d saves, %,d calls to the backend%n",
+                distinct * copies, perCallNanos / 1_000_000, distinct * copies * 1e9 / perCallNanos,
+                perCall.saved.sum(), perCall.calls.sum());
+
+        CountingDataBase bulk = new CountingDataBase();
+        FingerprintSet seen = new FingerprintSet(distinct);
+        UserService bulkService = new UserService(bulk, seen);
+        start = System.nanoTime();
+        long registered = bulkService.registerUsers(names(distinct, copies));
+        long bulkNanos = System.nanoTime() - start;
+        System.out.printf("registerUsers:        %,d ms (%,.0f names/s), %,d saves, %,d calls to the backend%n",
+                bulkNanos / 1_000_000, distinct * copies * 1e9 / bulkNanos, registered, bulk.calls.sum());
+        System.out.printf("dedup set: %,d names in %,d MB off-heap, heap grew %,d MB%n",
+                seen.size(), seen.offHeapBytes() >> 20, Math.max(0, usedHeap() - heapBefore) >> 20);
+
+        long replayed = bulkService.registerUsers(names(distinct, copies));
+        System.out.printf("replay of the same feed: %,d new registrations%n", replayed);
+    }
+
+    // Names cycle through `distinct` values `copies` times, so each repeat arrives long after the first.
+    private static Stream<String> names(long distinct, int copies) {
+        return LongStream.range(0, distinct * copies).mapToObj(i -> "user-" + i % distinct);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class CountingDataBase implements DataBase {
+        final LongAdder saved = new LongAdder();
+        final LongAdder calls = new LongAdder();
+
+        @Override
+        public void save(String data) {
+            saved.increment();
+            calls.increment();
+        }
+
+        @Override
+        public void saveAll(List<String> data) {
+            saved.add(data.size());
+            calls.increment();
+        }
+    }
+}
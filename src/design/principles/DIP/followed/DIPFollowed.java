@@ -1,35 +1,165 @@
 package design.principles.DIP.followed;
 
+import design.principles.metrics.Metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 interface DataBase {
     void save(String data);
+
+    // Backends that support multi-row writes override this to persist a whole batch in one call.
+    default void saveAll(List<String> data) {
+        data.forEach(this::save);
+    }
+
+    // Looks a saved record up; backends that cannot be queried report it as not found.
+    default Optional<String> find(String data) {
+        return Optional.empty();
+    }
+}
+
+// A backend that can list what it holds. ShardedDataBase uses it to copy records to their new owners when a
+// shard joins or leaves.
+interface ScannableDataBase extends DataBase {
+    void forEachRecord(Consumer<String> action);
 }
 
 record SaveToSqlDB() implements DataBase {
     @Override
     public void save(String data) {
-        System.out.println(
-                "Executing SQL Query: INSERT INTO users VALUES('"
-                        + data + "');"
-        );
+        StatementRenderer.stdout()
+                .append("Executing SQL Query: INSERT INTO users VALUES('")
+                .append(data).append("');")
+                .endStatement();
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        if (data.isEmpty())
+            return;
+        StatementRenderer query = StatementRenderer.stdout().append("Executing SQL Query: INSERT INTO users VALUES");
+        for (int i = 0; i < data.size(); i++)
+            query.append(i == 0 ? "('" : ", ('").append(data.get(i)).append("')");
+        query.append(';').endStatement();
+    }
+
+    @Override
+    public Optional<String> find(String data) {
+        StatementRenderer.stdout()
+                .append("Executing SQL Query: SELECT name FROM users WHERE name = '")
+                .append(data).append("';")
+                .endStatement();
+        return Optional.empty();
     }
 }
 
 record SaveToMongoDB() implements DataBase {
     @Override
     public void save(String data) {
-        System.out.println(
-                "Executing MongoDB Function: db.users.insert({name: '"
-                        + data + "'})"
-        );
+        StatementRenderer.stdout()
+                .append("Executing MongoDB Function: db.users.insert({name: '")
+                .append(data).append("'})")
+                .endStatement();
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        if (data.isEmpty())
+            return;
+        StatementRenderer query = StatementRenderer.stdout().append("Executing MongoDB Function: db.users.insertMany([");
+        for (int i = 0; i < data.size(); i++)
+            query.append(i == 0 ? "{name: '" : ", {name: '").append(data.get(i)).append("'}");
+        query.append("])").endStatement();
+    }
+
+    @Override
+    public Optional<String> find(String data) {
+        StatementRenderer.stdout()
+                .append("Executing MongoDB Function: db.users.findOne({name: '")
+                .append(data).append("'})")
+                .endStatement();
+        return Optional.empty();
+    }
+}
+
+// Really persists: each user is a key in an embedded LogStore, so load tests measure actual write cost.
+record SaveToLogStore(LogStore store) implements ScannableDataBase {
+    @Override
+    public void save(String data) {
+        store.put(data, data.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        List<byte[]> values = new ArrayList<>(data.size());
+        data.forEach(name -> values.add(name.getBytes(StandardCharsets.UTF_8)));
+        store.putAll(data, values);
+    }
+
+    @Override
+    public Optional<String> find(String data) {
+        return Optional.ofNullable(store.get(data)).map(value -> new String(value, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void forEachRecord(Consumer<String> action) {
+        store.forEachKey(action);
     }
 }
 
-record UserService(DataBase dataBase) {
+// `registered` remembers every name registerUsers has saved, across calls, so replaying a feed registers nothing
+// new. It is off-heap: nothing until the first registerUsers, then at least 512 KB of direct memory (see
+// FingerprintSet). Services that share a backend can share one set by passing it in.
+record UserService(DataBase dataBase, FingerprintSet registered) {
+    private static final int REGISTRATION_CHUNK = 1_000;
+
+    UserService(DataBase dataBase) {
+        this(dataBase, new FingerprintSet());
+    }
+
     public void registerUser(String name) {
         dataBase.save(name); // Dependency Injection
     }
+
+    // Registers each name not registered by an earlier call, once, in saveAll chunks; returns how many were
+    // registered. Calls on one service run one at a time, since the set is not thread-safe.
+    public long registerUsers(Stream<String> names) {
+        synchronized (registered) {
+            return registerNew(names);
+        }
+    }
+
+    private long registerNew(Stream<String> names) {
+        List<String> chunk = new ArrayList<>(REGISTRATION_CHUNK);
+        long saved = 0;
+        for (Iterator<String> it = names.iterator(); it.hasNext(); ) {
+            String name = it.next();
+            if (!registered.add(name))
+                continue;
+            chunk.add(name);
+            if (chunk.size() == REGISTRATION_CHUNK) {
+                dataBase.saveAll(chunk);
+                saved += chunk.size();
+                chunk = new ArrayList<>(REGISTRATION_CHUNK); // the backend may keep the list it was handed
+            }
+        }
+        if (!chunk.isEmpty()) {
+            dataBase.saveAll(chunk);
+            saved += chunk.size();
+        }
+        return saved;
+    }
+
+    public Optional<String> findUser(String name) {
+        return dataBase.find(name);
+    }
 }
 
 public class DIPFollowed {
@@ -40,5 +170,38 @@ public class DIPFollowed {
         );
 
         dbList.forEach(db -> new UserService(db).registerUser("Surya Kalyan"));
+
+        // Batching decorator: 10 registrations reach the backend as 3 multi-row inserts instead of 10 single ones.
+        System.out.println("\n---- Batched Registrations ----");
+        try (BatchingDataBase batching = new BatchingDataBase(new SaveToSqlDB(), 4, Duration.ofMillis(50), 64)) {
+            UserService service = new UserService(batching);
+            for (int i = 1; i <= 10; i++)
+                service.registerUser("User-" + i);
+        }
+
+        // Caching decorator: the registered user is served from the cache; only the unknown one reaches the backend.
+        System.out.println("\n---- Cached Lookups ----");
+        try (CachingDataBase cache = new CachingDataBase(new SaveToSqlDB(), 1_000, Duration.ofMinutes(5),
+                CachingDataBase.WriteMode.WRITE_THROUGH)) {
+            UserService service = new UserService(cache);
+            service.registerUser("Surya Kalyan");
+            System.out.println("findUser(Surya Kalyan) = " + service.findUser("Surya Kalyan").orElse("not found"));
+            System.out.println("findUser(Unknown) = " + service.findUser("Unknown").orElse("not found"));
+            System.out.printf("hits %d, misses %d%n", cache.hits(), cache.misses());
+        }
+
+        // Bulk registration: duplicates in the input are dropped, the rest go to the backend as one multi-row insert.
+        // Names the service registered before are dropped too.
+        System.out.println("\n---- Bulk Registration ----");
+        UserService bulk = new UserService(new SaveToSqlDB());
+        long registered = bulk.registerUsers(Stream.of("User-1", "User-2", "User-1", "User-3", "User-2"));
+        System.out.println(registered + " users registered");
+        registered = bulk.registerUsers(Stream.of("User-3", "User-4"));
+        System.out.println(registered + " more registered on the second call");
+
+        // Instrumented decorator: per-backend latency percentiles and counts.
+        System.out.println("\n---- Metrics ----");
+        dbList.forEach(db -> new UserService(new InstrumentedDataBase(db)).registerUser("Surya Kalyan"));
+        Metrics.report();
     }
 }
@@ -0,0 +1,187 @@
+package design.principles.DIP.followed;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// LogStore through the DataBase interface: write and read throughput, compaction, and recovery after reopen.
+// Checked first: an interrupted reader does not break the store for others, get() after close() fails instead of
+// spinning, compaction after deleting everything leaves no tombstones behind, and deleted keys stay deleted after a
+// crash between compaction's rename and its deletes.
+public class DIPLogStore {
+    public static void main(String[] args) throws IOException {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path directory = Files.createTempDirectory("log-store");
+        try {
+            interruptedReader(directory.resolve("interrupt"));
+            deletesCompactAway(directory.resolve("deletes"));
+            crashAfterCompactionRename(directory.resolve("crash"));
+            run(directory.resolve("load"), users);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static void run(Path directory, int users) throws IOException {
+        // Compaction is triggered by hand below, so the background interval is set long.
+        try (LogStore store = LogStore.open(directory, 16 << 20, Duration.ofHours(1))) {
+            UserService service = new UserService(new SaveToLogStore(store));
+            long start = System.nanoTime();
+            for (int i = 0; i < users; i++)
+                service.registerUser("user-" + i);
+            report("single-record writes", users, start);
+
+            start = System.nanoTime();
+            List<String> batch = new ArrayList<>(1_000);
+            for (int i = 0; i < users; i++) {
+                batch.add("user-" + i);
+                if (batch.size() == 1_000) {
+                    service.dataBase().saveAll(batch);
+                    batch.clear();
+                }
+            }
+            report("batched overwrites", users, start);
+
+            start = System.nanoTime();
+            for (int i = 0; i < users; i++) {
+                byte[] value = store.get("user-" + i);
+                if (value == null || !new String(value, StandardCharsets.UTF_8).equals("user-" + i))
+                    throw new IllegalStateException("Lost user-" + i);
+            }
+            report("point reads", users, start);
+
+            start = System.nanoTime();
+            long reclaimed = store.compact();
+            System.out.printf("compaction reclaimed %,d MB in %,d ms%n", reclaimed >> 20,
+                    (System.nanoTime() - start) / 1_000_000);
+            for (int i = 0; i < users; i += 997)
+                if (store.get("user-" + i) == null)
+                    throw new IllegalStateException("Compaction lost user-" + i);
+        }
+
+        long start = System.nanoTime();
+        try (LogStore store = LogStore.open(directory, 16 << 20, Duration.ofHours(1))) {
+            report("reopen and index rebuild", store.size(), start);
+            if (store.size() != users || !"user-0".equals(new String(store.get("user-0"), StandardCharsets.UTF_8)))
+                throw new IllegalStateException("Recovered " + store.size() + " of " + users + " users.");
+        }
+    }
+
+    private static void interruptedReader(Path directory) throws IOException {
+        LogStore store = LogStore.open(directory, 16 << 20, Duration.ofHours(1));
+        try (store) {
+            store.put("key", "value".getBytes(StandardCharsets.UTF_8));
+            boolean[] stillInterrupted = new boolean[1];
+            Thread reader = new Thread(() -> {
+                Thread.currentThread().interrupt();
+                if (store.get("key") == null)
+                    throw new IllegalStateException("Interrupted reader lost the value.");
+                stillInterrupted[0] = Thread.currentThread().isInterrupted();
+            });
+            reader.start();
+            try {
+                reader.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (!stillInterrupted[0])
+                throw new IllegalStateException("The reader's interrupt was swallowed.");
+            if (!"value".equals(new String(store.get("key"), StandardCharsets.UTF_8)))
+                throw new IllegalStateException("Reads fail after another reader was interrupted.");
+        }
+        try {
+            store.get("key");
+            throw new IllegalStateException("get() after close() returned.");
+        } catch (IllegalStateException e) {
+            if (!"LogStore is closed.".equals(e.getMessage()))
+                throw e;
+        }
+        System.out.println("interrupted reader: store still readable; get() after close() rejected");
+    }
+
+    private static void deletesCompactAway(Path directory) throws IOException {
+        int keys = 10_000;
+        int segmentBytes = 16 << 10;
+        try (LogStore store = LogStore.open(directory, segmentBytes, Duration.ofHours(1))) {
+            for (int i = 0; i < keys; i++)
+                store.put("user-" + i, ("user-" + i).getBytes(StandardCharsets.UTF_8));
+            for (int i = 0; i < keys; i++)
+                store.delete("user-" + i);
+            store.compact();
+            if (store.compact() != 0)
+                throw new IllegalStateException("A second compaction still found garbage.");
+        }
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList())
+                bytes += Files.size(path);
+        }
+        if (bytes > segmentBytes)
+            throw new IllegalStateException("Tombstones survived compaction: " + bytes + " bytes left.");
+        try (LogStore store = LogStore.open(directory, segmentBytes, Duration.ofHours(1))) {
+            if (store.size() != 0)
+                throw new IllegalStateException("Deleted keys came back after reopen.");
+        }
+        System.out.printf("deletes compacted away: %,d bytes left on disk%n", bytes);
+    }
+
+    // Simulates the crash by restoring the victims compaction deleted after moving the merged file into place.
+    private static void crashAfterCompactionRename(Path directory) throws IOException {
+        int keys = 1_000;
+        int segmentBytes = 16 << 10;
+        try (LogStore store = LogStore.open(directory, segmentBytes, Duration.ofHours(1))) {
+            for (int i = 0; i < keys; i++)
+                store.put("user-" + i, ("user-" + i).getBytes(StandardCharsets.UTF_8));
+            // A value of a whole segment forces a roll, so the tombstones get a segment of their own: the newest
+            // closed one, whose values are the ones a crash could leave without their tombstones.
+            store.put("padding", new byte[segmentBytes]);
+            for (int i = 0; i < keys; i += 2)
+                store.delete("user-" + i);
+            store.put("padding", new byte[segmentBytes]);
+        }
+        Map<Path, byte[]> before = new HashMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList())
+                before.put(path, Files.readAllBytes(path));
+        }
+        try (LogStore store = LogStore.open(directory, segmentBytes, Duration.ofHours(1))) {
+            store.compact();
+        }
+        int restored = 0;
+        for (Map.Entry<Path, byte[]> file : before.entrySet()) {
+            if (Files.notExists(file.getKey())) {
+                Files.write(file.getKey(), file.getValue());
+                restored++;
+            }
+        }
+        if (restored == 0)
+            throw new IllegalStateException("Compaction deleted no segment; the check needs several.");
+        try (LogStore store = LogStore.open(directory, segmentBytes, Duration.ofHours(1))) {
+            for (int i = 0; i < keys; i++) {
+                boolean present = store.get("user-" + i) != null;
+                if (present != (i % 2 == 1))
+                    throw new IllegalStateException("user-" + i + (present ? " came back" : " was lost")
+                            + " after a crash between compaction's rename and deletes.");
+            }
+        }
+        System.out.printf("crash after compaction rename: %,d segments replayed again, no deleted key returned%n",
+                restored);
+    }
+
+    private static void report(String phase, int operations, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        System.out.printf("%-26s %,d ops in %,d ms (%,.0f ops/s)%n", phase, operations, elapsed / 1_000_000,
+                operations * 1e9 / elapsed);
+    }
+}
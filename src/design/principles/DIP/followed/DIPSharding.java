@@ -0,0 +1,163 @@
+package design.principles.DIP.followed;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// ShardedDataBase over in-memory backends: spread of keys, replication, key movement when a shard joins or
+// leaves, and lookups still served after removing a shard.
+// Checked first: records are copied to their new owners when a shard joins or leaves, removeShard keeps every replica,
+// and a backend that cannot list its records is still read through the retired ring.
+public class DIPSharding {
+    public static void main(String[] args) {
+        checkAddShardMigrates();
+        checkRemoveShardKeepsReplicas();
+        checkFallbackWithoutScan();
+        int users = 200_000;
+        Map<String, InMemoryDataBase> backends = new LinkedHashMap<>();
+        for (int i = 1; i <= 4; i++)
+            backends.put("shard-" + i, new InMemoryDataBase());
+
+        try (ShardedDataBase sharded = new ShardedDataBase(Map.copyOf(backends), 2, 128)) {
+            List<String> names = new ArrayList<>(users);
+            for (int i = 0; i < users; i++)
+                names.add("user-" + i);
+            long start = System.nanoTime();
+            for (int i = 0; i < users; i += 1_000)
+                sharded.saveAll(names.subList(i, i + 1_000));
+            System.out.printf("%,d users x 2 replicas over 4 shards in %,d ms%n",
+                    users, (System.nanoTime() - start) / 1_000_000);
+            backends.forEach((name, backend) -> System.out.printf("  %s holds %,d%n", name, backend.size()));
+
+            Map<String, List<String>> before = placement(sharded, names);
+            backends.put("shard-5", new InMemoryDataBase());
+            sharded.addShard("shard-5", backends.get("shard-5"));
+            System.out.printf("adding shard-5 moves the primary of %.1f%% of keys (ideal %.1f%%)%n",
+                    moved(before, placement(sharded, names)) * 100, 100.0 / 5);
+            sharded.removeShard("shard-5");
+            System.out.printf("removing it again restores the original placement of %.1f%% of keys%n",
+                    (1 - moved(before, placement(sharded, names))) * 100);
+
+            sharded.removeShard("shard-1");
+            long found = names.stream().filter(name -> sharded.find(name).isPresent()).count();
+            System.out.printf("after removing shard-1: %,d of %,d users found%n", found, users);
+        }
+    }
+
+    private static void checkAddShardMigrates() {
+        Map<String, DataBase> backends = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++)
+            backends.put("shard-" + i, new InMemoryDataBase());
+        try (ShardedDataBase sharded = new ShardedDataBase(backends, 1, 128)) {
+            List<String> names = names(10_000);
+            sharded.saveAll(names);
+            InMemoryDataBase added = new InMemoryDataBase();
+            if (!sharded.addShard("shard-4", added))
+                throw new IllegalStateException("addShard did not rebalance in-memory shards.");
+            long lost = names.stream().filter(name -> sharded.find(name).isEmpty()).count();
+            if (lost > 0)
+                throw new IllegalStateException(lost + " of 10,000 users lost after addShard.");
+            long owned = names.stream().filter(name -> sharded.shardsFor(name).contains("shard-4")).count();
+            if (added.size() != owned)
+                throw new IllegalStateException("shard-4 holds " + added.size() + " users but owns " + owned + ".");
+        }
+    }
+
+    private static void checkRemoveShardKeepsReplicas() {
+        Map<String, InMemoryDataBase> backends = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++)
+            backends.put("shard-" + i, new InMemoryDataBase());
+        try (ShardedDataBase sharded = new ShardedDataBase(Map.copyOf(backends), 2, 128)) {
+            List<String> names = names(10_000);
+            sharded.saveAll(names);
+            sharded.removeShard("shard-1");
+            for (String name : names)
+                for (String owner : sharded.shardsFor(name))
+                    if (backends.get(owner).find(name).isEmpty())
+                        throw new IllegalStateException(owner + " lacks " + name + " after removing shard-1.");
+            try {
+                sharded.removeShard("shard-2");
+                throw new IllegalStateException("removeShard left fewer shards than replicas.");
+            } catch (IllegalStateException expected) {
+                if (!expected.getMessage().startsWith("Removing"))
+                    throw expected;
+            }
+        }
+    }
+
+    private static void checkFallbackWithoutScan() {
+        Map<String, DataBase> backends = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            InMemoryDataBase memory = new InMemoryDataBase();
+            backends.put("shard-" + i, new DataBase() {
+                @Override
+                public void save(String data) {
+                    memory.save(data);
+                }
+
+                @Override
+                public Optional<String> find(String data) {
+                    return memory.find(data);
+                }
+            });
+        }
+        try (ShardedDataBase sharded = new ShardedDataBase(backends, 1, 128)) {
+            List<String> names = names(10_000);
+            sharded.saveAll(names);
+            if (sharded.addShard("shard-4", new InMemoryDataBase()))
+                throw new IllegalStateException("addShard rebalanced backends that cannot list their records.");
+            long lost = names.stream().filter(name -> sharded.find(name).isEmpty()).count();
+            if (lost > 0)
+                throw new IllegalStateException(lost + " of 10,000 users lost without a rebalance.");
+        }
+    }
+
+    private static List<String> names(int count) {
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            names.add("user-" + i);
+        return names;
+    }
+
+    private static Map<String, List<String>> placement(ShardedDataBase sharded, List<String> names) {
+        Map<String, List<String>> placement = new LinkedHashMap<>();
+        for (String name : names)
+            placement.put(name, sharded.shardsFor(name));
+        return placement;
+    }
+
+    private static double moved(Map<String, List<String>> before, Map<String, List<String>> after) {
+        long moved = before.keySet().stream()
+                .filter(name -> !before.get(name).get(0).equals(after.get(name).get(0)))
+                .count();
+        return (double) moved / before.size();
+    }
+
+    private static final class InMemoryDataBase implements ScannableDataBase {
+        private final Set<String> users = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void save(String data) {
+            users.add(data);
+        }
+
+        @Override
+        public Optional<String> find(String data) {
+            return users.contains(data) ? Optional.of(data) : Optional.empty();
+        }
+
+        @Override
+        public void forEachRecord(Consumer<String> action) {
+            users.forEach(action);
+        }
+
+        int size() {
+            return users.size();
+        }
+    }
+}
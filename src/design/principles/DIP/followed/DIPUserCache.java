@@ -0,0 +1,106 @@
+package design.principles.DIP.followed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+// findUser over a LogStore backend with Zipfian (skewed) lookups, uncached and behind CachingDataBase.
+// Checked first: a cache smaller than its shard count still holds no more than maxEntries, and a save the backend
+// refused is not served from the cache.
+public class DIPUserCache {
+    public static void main(String[] args) throws IOException {
+        checkSmallCacheBound();
+        checkFailedSaveNotCached();
+        int users = 200_000;
+        int lookups = 2_000_000;
+        double skew = args.length > 0 ? Double.parseDouble(args[0]) : 0.99;
+        Path directory = Files.createTempDirectory("user-cache");
+        try (LogStore store = LogStore.open(directory, 64 << 20, Duration.ofHours(1))) {
+            DataBase backend = new SaveToLogStore(store);
+            for (int i = 0; i < users; i++)
+                new UserService(backend).registerUser("user-" + i);
+
+            int[] keys = zipf(users, skew, lookups, new SplittableRandom(42));
+            time(new UserService(backend), keys); // warm-up
+            long uncached = time(new UserService(backend), keys);
+            System.out.printf("%,d Zipf(%.2f) lookups over %,d users: uncached %,d ms%n",
+                    lookups, skew, users, uncached);
+            for (CachingDataBase.Eviction eviction : CachingDataBase.Eviction.values()) {
+                // Warmed up like the uncached run, on a throwaway cache so the measured one starts cold.
+                try (CachingDataBase warmUp = cache(backend, users / 20, eviction)) {
+                    time(new UserService(warmUp), keys);
+                }
+                try (CachingDataBase cache = cache(backend, users / 20, eviction)) {
+                    long cached = time(new UserService(cache), keys);
+                    System.out.printf("%-8s cache of %,d entries: %,d ms, hit rate %.1f%%, %,d misses, "
+                                    + "%,d evictions, %,d rejected%n", eviction, users / 20, cached,
+                            cache.hitRate() * 100, cache.misses(), cache.evictions(), cache.rejections());
+                }
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static CachingDataBase cache(DataBase backend, int entries, CachingDataBase.Eviction eviction) {
+        return new CachingDataBase(backend, entries, Duration.ofMinutes(5), CachingDataBase.WriteMode.WRITE_THROUGH,
+                eviction);
+    }
+
+    private static void checkSmallCacheBound() {
+        DataBase discard = name -> { };
+        try (CachingDataBase cache = new CachingDataBase(discard, 10, Duration.ofMinutes(5),
+                CachingDataBase.WriteMode.WRITE_THROUGH)) {
+            for (int i = 0; i < 100; i++)
+                cache.save("user-" + i);
+            if (cache.evictions() != 90)
+                throw new IllegalStateException("A 10-entry cache evicted " + cache.evictions() + " of 100 entries.");
+        }
+    }
+
+    private static void checkFailedSaveNotCached() {
+        DataBase refusing = name -> {
+            throw new IllegalStateException("backend down");
+        };
+        try (CachingDataBase cache = new CachingDataBase(refusing, 100, Duration.ofMinutes(5),
+                CachingDataBase.WriteMode.WRITE_THROUGH)) {
+            try {
+                cache.save("user-1");
+            } catch (IllegalStateException expected) {
+                // the backend's failure reaches the caller
+            }
+            if (cache.find("user-1").isPresent())
+                throw new IllegalStateException("A save the backend refused was served from the cache.");
+        }
+    }
+
+    private static long time(UserService service, int[] keys) {
+        long start = System.nanoTime();
+        for (int key : keys)
+            if (service.findUser("user-" + key).isEmpty())
+                throw new IllegalStateException("user-" + key + " not found");
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // Draws `count` ranks in [0, n) with P(rank k) proportional to 1 / (k + 1)^skew.
+    private static int[] zipf(int n, double skew, int count, SplittableRandom random) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++)
+            cumulative[k] = sum += 1 / Math.pow(k + 1, skew);
+        int[] draws = new int[count];
+        for (int i = 0; i < count; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            draws[i] = Math.min(rank < 0 ? -rank - 1 : rank, n - 1);
+        }
+        return draws;
+    }
+}
@@ -0,0 +1,111 @@
+package design.principles.DIP.followed;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+// Off-heap set of 64-bit name fingerprints for deduplicating registrations: 8 bytes per distinct name at
+// most 75% load, outside the Java heap, so hundreds of millions of names fit without GC pressure.
+// Names are reduced to a 64-bit hash, so two different names collide with probability about n^2 / 2^65
+// (around 0.2% for 300M distinct names); a collision makes the later name look like a duplicate.
+// Slots live in 64 independently growing open-addressing segments (linear probing, 0 = empty), picked by the top
+// bits of the fingerprint, so no single buffer exceeds the 2 GB ByteBuffer limit and growth copies one segment.
+// A segment's direct buffer is allocated on its first add, so an unused set costs nothing off-heap; once names have
+// reached every segment it holds at least 64 x 8 KB (512 KB) of direct memory, growing to 8 bytes per slot at up to
+// 75% load. Direct buffers count against -XX:MaxDirectMemorySize and are released only when the set is collected.
+// Not thread-safe.
+final class FingerprintSet {
+    private static final int SEGMENT_BITS = 6;
+    private static final int INITIAL_SLOTS = 1 << 10;
+    private static final int MAX_SLOTS = 1 << 27;
+
+    private final LongBuffer[] segments = new LongBuffer[1 << SEGMENT_BITS];
+    private final int[] sizes = new int[segments.length];
+    private final int initialSlots;
+    private long size;
+
+    FingerprintSet() {
+        this(0);
+    }
+
+    // Presized for `expectedNames` distinct names, so filling it up to that point never rehashes.
+    FingerprintSet(long expectedNames) {
+        long perSegment = expectedNames / segments.length * 4 / 3 + 1;
+        this.initialSlots = (int) Math.min(MAX_SLOTS,
+                Math.max(INITIAL_SLOTS, Long.highestOneBit(perSegment - 1) << 1));
+    }
+
+    // True if the name was not in the set yet.
+    boolean add(String name) {
+        long fingerprint = fingerprint(name);
+        int segment = (int) (fingerprint >>> (64 - SEGMENT_BITS));
+        if (segments[segment] == null)
+            segments[segment] = allocate(initialSlots);
+        else if (sizes[segment] >= segments[segment].capacity() / 4 * 3)
+            grow(segment);
+        if (!insert(segments[segment], fingerprint))
+            return false;
+        sizes[segment]++;
+        size++;
+        return true;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long offHeapBytes() {
+        long bytes = 0;
+        for (LongBuffer segment : segments)
+            if (segment != null)
+                bytes += (long) segment.capacity() * Long.BYTES;
+        return bytes;
+    }
+
+    private static boolean insert(LongBuffer slots, long fingerprint) {
+        int mask = slots.capacity() - 1;
+        int slot = (int) fingerprint & mask;
+        while (true) {
+            long existing = slots.get(slot);
+            if (existing == 0) {
+                slots.put(slot, fingerprint);
+                return true;
+            }
+            if (existing == fingerprint)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void grow(int segment) {
+        LongBuffer old = segments[segment];
+        if (old.capacity() == MAX_SLOTS)
+            throw new IllegalStateException("FingerprintSet segment is full.");
+        LongBuffer grown = allocate(old.capacity() * 2);
+        for (int i = 0; i < old.capacity(); i++) {
+            long fingerprint = old.get(i);
+            if (fingerprint != 0)
+                insert(grown, fingerprint);
+        }
+        segments[segment] = grown;
+    }
+
+    private static LongBuffer allocate(int slots) {
+        return ByteBuffer.allocateDirect(slots * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+    // FNV-1a over the UTF-16 chars, then a murmur3 finalizer to spread the bits; never 0, which marks an empty slot.
+    static long fingerprint(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == 0 ? 1 : hash;
+    }
+}
@@ -0,0 +1,65 @@
+package design.principles.DIP.followed;
+
+import design.principles.metrics.Metrics;
+import design.principles.metrics.OperationMetrics;
+
+import java.util.List;
+import java.util.Optional;
+
+// Decorator over any DataBase that records save/find latency per backend, under "DataBase.<backend>.<operation>".
+// A saveAll is recorded once, as one batch. A call that throws is recorded as rejected; a find that comes back
+// empty is not, since the lookup itself succeeded.
+final class InstrumentedDataBase implements DataBase {
+    private final DataBase delegate;
+    private final OperationMetrics saves;
+    private final OperationMetrics batches;
+    private final OperationMetrics finds;
+
+    InstrumentedDataBase(DataBase delegate) {
+        this(delegate, delegate.getClass().getSimpleName());
+    }
+
+    InstrumentedDataBase(DataBase delegate, String backend) {
+        this.delegate = delegate;
+        this.saves = Metrics.operation("DataBase." + backend + ".save");
+        this.batches = Metrics.operation("DataBase." + backend + ".saveAll");
+        this.finds = Metrics.operation("DataBase." + backend + ".find");
+    }
+
+    @Override
+    public void save(String data) {
+        long start = saves.start();
+        boolean failed = true;
+        try {
+            delegate.save(data);
+            failed = false;
+        } finally {
+            saves.stop(start, failed);
+        }
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        long start = batches.start();
+        boolean failed = true;
+        try {
+            delegate.saveAll(data);
+            failed = false;
+        } finally {
+            batches.stop(start, failed);
+        }
+    }
+
+    @Override
+    public Optional<String> find(String data) {
+        long start = finds.start();
+        boolean failed = true;
+        try {
+            Optional<String> found = delegate.find(data);
+            failed = false;
+            return found;
+        } finally {
+            finds.stop(start, failed);
+        }
+    }
+}
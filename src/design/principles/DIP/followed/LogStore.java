@@ -0,0 +1,483 @@
+package design.principles.DIP.followed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Embedded, log-structured key-value store: a local backend for DataBase and SaveProduct that really hits the disk.
+// Writes are appended to the active segment file; an in-memory hash index maps each key to where its latest value
+// lives, so a read is one positional read. Full segments are closed and a background task merges them, keeping only
+// live values, once at least half of their bytes are dead. The merge always includes the oldest segment, so it drops
+// tombstones: no older value is left for them to hide. The merged file replaces the oldest victim and the others are
+// deleted oldest first, so after a crash in between, the survivors replay after it, in order, and still win.
+//
+// FileChannel closes itself when a thread blocked in it is interrupted, which would break the channel for every other
+// reader. Segment reopens a channel that was closed that way and finishes the operation, restoring the interrupt.
+//
+// Record: [int crc32 of the rest][int key length][int value length, -1 for a tombstone][key UTF-8][value].
+public final class LogStore implements Closeable {
+    private static final int RECORD_HEADER = 3 * Integer.BYTES;
+    private static final int TOMBSTONE = -1;
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final ScheduledExecutorService compactor;
+
+    // Guarded by writeLock.
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    // Written under writeLock; volatile so get() can check it without the lock.
+    private volatile boolean closed;
+
+    private LogStore(Path directory, long maxSegmentBytes) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.compactor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "log-store-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Opens (or creates) the store in `directory`, rebuilding the index from its segments.
+    public static LogStore open(Path directory, long maxSegmentBytes, Duration compactionInterval) throws IOException {
+        Files.createDirectories(directory);
+        LogStore store = new LogStore(directory, maxSegmentBytes);
+        try {
+            store.recover();
+        } catch (IOException | RuntimeException e) {
+            store.compactor.shutdownNow();
+            throw e;
+        }
+        long millis = compactionInterval.toMillis();
+        store.compactor.scheduleWithFixedDelay(store::compactIfWorthwhile, millis, millis, TimeUnit.MILLISECONDS);
+        return store;
+    }
+
+    public void put(String key, byte[] value) {
+        write(List.of(key), List.of(value));
+    }
+
+    // Appends all pairs with a single write.
+    public void putAll(List<String> keys, List<byte[]> values) {
+        if (keys.size() != values.size())
+            throw new IllegalArgumentException("Keys and values differ in length.");
+        write(keys, values);
+    }
+
+    public void delete(String key) {
+        write(List.of(key), Collections.singletonList(null));
+    }
+
+    // Latest value for `key`, or null if it was never written or has been deleted.
+    public byte[] get(String key) {
+        while (true) {
+            if (closed)
+                throw new IllegalStateException("LogStore is closed.");
+            Entry entry = index.get(key);
+            if (entry == null)
+                return null;
+            try {
+                return entry.segment.read(entry.valueOffset(), entry.valueLength);
+            } catch (ClosedChannelException e) {
+                // Compaction retires a segment only after moving its live entries, so retry only if this one moved.
+                if (closed)
+                    throw new IllegalStateException("LogStore is closed.");
+                if (entry.equals(index.get(key)))
+                    throw new UncheckedIOException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    // Every live key, in no particular order; keys written or deleted meanwhile may or may not be seen.
+    public void forEachKey(Consumer<String> action) {
+        index.keySet().forEach(action);
+    }
+
+    // Forces everything written so far to disk.
+    public void sync() {
+        writeLock.lock();
+        try {
+            active.force();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Merges every closed segment into one that holds only live values. Returns bytes reclaimed.
+    public long compact() {
+        compactionLock.lock();
+        try {
+            return compactClosedSegments();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        compactionLock.lock();
+        writeLock.lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            active.force();
+            for (Segment segment : segments)
+                segment.retire();
+        } finally {
+            writeLock.unlock();
+            compactionLock.unlock();
+        }
+    }
+
+    private void write(List<String> keys, List<byte[]> values) {
+        List<byte[]> encodedKeys = new ArrayList<>(keys.size());
+        int total = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] key = keys.get(i).getBytes(StandardCharsets.UTF_8);
+            encodedKeys.add(key);
+            total += RECORD_HEADER + key.length + (values.get(i) == null ? 0 : values.get(i).length);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        for (int i = 0; i < keys.size(); i++)
+            encode(buffer, encodedKeys.get(i), values.get(i));
+        buffer.flip();
+
+        writeLock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("LogStore is closed.");
+            if (active.size > 0 && active.size + total > maxSegmentBytes)
+                roll();
+            long start = active.size;
+            active.write(buffer, start);
+            long offset = start;
+            for (int i = 0; i < keys.size(); i++) {
+                byte[] value = values.get(i);
+                int length = value == null ? TOMBSTONE : value.length;
+                int recordBytes = RECORD_HEADER + encodedKeys.get(i).length + Math.max(length, 0);
+                index(keys.get(i), active, offset, recordBytes, length);
+                offset += recordBytes;
+            }
+            active.size = offset;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Called with writeLock held (or single-threaded during recovery).
+    private void index(String key, Segment segment, long recordOffset, int recordBytes, int valueLength) {
+        Entry previous;
+        if (valueLength == TOMBSTONE) {
+            previous = index.remove(key);
+            // Counted as garbage: the next compaction drops it, so deletes alone can trigger one.
+            segment.deadBytes += recordBytes;
+        } else {
+            previous = index.put(key, new Entry(segment, recordOffset, recordBytes, valueLength));
+        }
+        if (previous != null)
+            previous.segment.deadBytes += previous.recordBytes;
+    }
+
+    private static void encode(ByteBuffer buffer, byte[] key, byte[] value) {
+        int start = buffer.position();
+        buffer.position(start + Integer.BYTES);
+        buffer.putInt(key.length).putInt(value == null ? TOMBSTONE : value.length).put(key);
+        if (value != null)
+            buffer.put(value);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), start + Integer.BYTES, buffer.position() - start - Integer.BYTES);
+        buffer.putInt(start, (int) crc.getValue());
+    }
+
+    private void roll() throws IOException {
+        active.force();
+        active = Segment.create(directory, active.id + 1);
+        segments.add(active);
+    }
+
+    private void compactIfWorthwhile() {
+        long closedBytes = 0;
+        long deadBytes = 0;
+        writeLock.lock();
+        try {
+            for (Segment segment : segments) {
+                if (segment != active) {
+                    closedBytes += segment.size;
+                    deadBytes += segment.deadBytes;
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        if (closedBytes > 0 && deadBytes * 2 >= closedBytes) {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                // Compaction is an optimisation; the next run retries.
+            }
+        }
+    }
+
+    private long compactClosedSegments() throws IOException {
+        List<Segment> victims = new ArrayList<>();
+        writeLock.lock();
+        try {
+            if (closed)
+                return 0;
+            for (Segment segment : segments)
+                if (segment != active)
+                    victims.add(segment);
+        } finally {
+            writeLock.unlock();
+        }
+        if (victims.isEmpty())
+            return 0;
+
+        // The merged segment takes the oldest victim's id: any victim a crash leaves on disk must replay after it.
+        Segment oldest = victims.get(0);
+        Path tmp = directory.resolve(oldest.path.getFileName() + ".compact");
+        List<Relocation> relocations = new ArrayList<>();
+        long before = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Segment victim : victims) {
+                before += victim.size;
+                MappedByteBuffer in = victim.map(victim.size);
+                while (in.hasRemaining()) {
+                    int recordOffset = in.position();
+                    in.getInt();
+                    int keyLength = in.getInt();
+                    int valueLength = in.getInt();
+                    byte[] key = new byte[keyLength];
+                    in.get(key);
+                    int recordBytes = RECORD_HEADER + keyLength + Math.max(valueLength, 0);
+                    in.position(recordOffset + recordBytes);
+                    String keyString = new String(key, StandardCharsets.UTF_8);
+                    Entry current = index.get(keyString);
+                    if (current == null || current.segment != victim || current.recordOffset != recordOffset)
+                        continue;
+                    ByteBuffer record = in.slice(recordOffset, recordBytes);
+                    while (record.hasRemaining())
+                        position += out.write(record, position);
+                    relocations.add(new Relocation(keyString, current, position - recordBytes, recordBytes, valueLength));
+                }
+            }
+            out.force(true);
+        }
+
+        writeLock.lock();
+        try {
+            Files.move(tmp, oldest.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Segment merged = new Segment(oldest.id, oldest.path,
+                    FileChannel.open(oldest.path, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            for (Relocation relocation : relocations) {
+                merged.size = relocation.offset + relocation.recordBytes;
+                Entry moved = new Entry(merged, relocation.offset, relocation.recordBytes, relocation.valueLength);
+                // A key rewritten since the scan keeps its newer location; its merged copy is dead on arrival.
+                if (!index.replace(relocation.key, relocation.entry, moved))
+                    merged.deadBytes += relocation.recordBytes;
+            }
+            segments.removeAll(victims);
+            segments.add(0, merged);
+        } finally {
+            writeLock.unlock();
+        }
+        // Oldest first: whatever a crash leaves behind is then a newest-last suffix of the victims.
+        for (Segment victim : victims) {
+            victim.retire();
+            if (victim != oldest)
+                Files.deleteIfExists(victim.path);
+        }
+        return before - relocations.stream().mapToLong(Relocation::recordBytes).sum();
+    }
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(".log")).sorted().toList();
+        }
+        // Leftovers of a compaction that crashed before its rename; the segments they came from are intact.
+        try (Stream<Path> listing = Files.list(directory)) {
+            for (Path leftover : listing.filter(path -> path.getFileName().toString().endsWith(".compact")).toList())
+                Files.delete(leftover);
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            Segment segment = new Segment(Long.parseLong(name.substring(0, name.length() - 4)), file,
+                    FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+            segment.size = replay(segment);
+            segment.channel.truncate(segment.size);
+            segments.add(segment);
+        }
+        if (segments.isEmpty())
+            segments.add(Segment.create(directory, 0));
+        active = segments.get(segments.size() - 1);
+    }
+
+    // Indexes every intact record of `segment` and returns the offset just past the last one.
+    private long replay(Segment segment) throws IOException {
+        long size = segment.channel.size();
+        if (size == 0)
+            return 0;
+        MappedByteBuffer in = segment.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        CRC32 crc = new CRC32();
+        while (in.remaining() >= RECORD_HEADER) {
+            int recordOffset = in.position();
+            int checksum = in.getInt();
+            int keyLength = in.getInt();
+            int valueLength = in.getInt();
+            if (keyLength < 0 || valueLength < TOMBSTONE
+                    || (long) keyLength + Math.max(valueLength, 0) > in.remaining())
+                return recordOffset;
+            crc.reset();
+            crc.update(in.slice(recordOffset + Integer.BYTES, RECORD_HEADER - Integer.BYTES + keyLength + Math.max(valueLength, 0)));
+            if ((int) crc.getValue() != checksum)
+                return recordOffset;
+            byte[] key = new byte[keyLength];
+            in.get(key);
+            int recordBytes = RECORD_HEADER + keyLength + Math.max(valueLength, 0);
+            in.position(recordOffset + recordBytes);
+            index(new String(key, StandardCharsets.UTF_8), segment, recordOffset, recordBytes, valueLength);
+        }
+        return in.position();
+    }
+
+    private record Entry(Segment segment, long recordOffset, int recordBytes, int valueLength) {
+        long valueOffset() {
+            return recordOffset + recordBytes - valueLength;
+        }
+    }
+
+    private record Relocation(String key, Entry entry, long offset, int recordBytes, int valueLength) {
+    }
+
+    private interface ChannelOperation<T> {
+        T apply(FileChannel channel) throws IOException;
+    }
+
+    private static final class Segment {
+        final long id;
+        final Path path;
+        // Replaced by reopen() when an interrupt closed it; retired once compaction or close() is done with it.
+        volatile FileChannel channel;
+        private boolean retired;
+        // Both guarded by writeLock once the store is open.
+        long size;
+        long deadBytes;
+
+        Segment(long id, Path path, FileChannel channel) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+        }
+
+        byte[] read(long offset, int length) throws IOException {
+            ByteBuffer value = ByteBuffer.allocate(length);
+            while (value.hasRemaining()) {
+                if (call(channel -> channel.read(value, offset + value.position())) < 0)
+                    throw new IOException("Segment " + path + " is shorter than its index.");
+            }
+            return value.array();
+        }
+
+        void write(ByteBuffer buffer, long offset) throws IOException {
+            int start = buffer.position();
+            while (buffer.hasRemaining())
+                call(channel -> channel.write(buffer, offset + buffer.position() - start));
+        }
+
+        void force() throws IOException {
+            call(channel -> {
+                channel.force(false);
+                return 0;
+            });
+        }
+
+        MappedByteBuffer map(long size) throws IOException {
+            return call(channel -> channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+
+        synchronized void retire() throws IOException {
+            retired = true;
+            channel.close();
+        }
+
+        // Runs `operation`, reopening the channel if another thread's interrupt (or this one's) closed it meanwhile.
+        // Throws ClosedChannelException once the segment is retired.
+        private <T> T call(ChannelOperation<T> operation) throws IOException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    FileChannel current = channel;
+                    try {
+                        return operation.apply(current);
+                    } catch (ClosedByInterruptException e) {
+                        interrupted = true;
+                        Thread.interrupted(); // otherwise the retry is closed again straight away
+                        reopen(current);
+                    } catch (ClosedChannelException e) {
+                        reopen(current);
+                    }
+                }
+            } finally {
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+            }
+        }
+
+        private synchronized void reopen(FileChannel broken) throws IOException {
+            if (retired)
+                throw new ClosedChannelException();
+            if (channel == broken)
+                channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        static Segment create(Path directory, long id) throws IOException {
+            Path path = directory.resolve(String.format("%016d.log", id));
+            return new Segment(id, path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE));
+        }
+    }
+}
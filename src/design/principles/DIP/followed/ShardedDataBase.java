@@ -0,0 +1,229 @@
+package design.principles.DIP.followed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Routes every record to `replicationFactor` of several named backends with a consistent-hash ring: each shard owns
+// `virtualNodes` points on the ring and a key goes to the owners of the next distinct shards clockwise from its hash.
+// Adding or removing a shard therefore only moves the keys next to that shard's points, about 1/N of them.
+// The ring is an immutable snapshot swapped on every change, so routing takes no lock. saveAll splits its batch
+// by shard and writes the groups side by side; concurrent save() calls that land on different shards never wait
+// on each other.
+// When the ring changes, the old ring is kept as retired and find() falls back to its owners, copying what it finds
+// there to the new owners. rebalance() (run by addShard/removeShard) then copies every record to any new owner that
+// lacks it and drops the retired rings; it needs every backend to be a ScannableDataBase, and until it succeeds the
+// fallback stays on. Copies left on shards that no longer own a record are not deleted: DataBase has no delete.
+final class ShardedDataBase implements DataBase, AutoCloseable {
+    private final int replicationFactor;
+    private final int virtualNodes;
+    private final ExecutorService writers;
+    private volatile Topology topology;
+
+    ShardedDataBase(Map<String, DataBase> shards, int replicationFactor, int virtualNodes) {
+        if (replicationFactor <= 0 || virtualNodes <= 0)
+            throw new IllegalArgumentException("replicationFactor and virtualNodes must be positive.");
+        this.replicationFactor = replicationFactor;
+        this.virtualNodes = virtualNodes;
+        this.topology = new Topology(Ring.of(new LinkedHashMap<>(shards), virtualNodes), List.of());
+        this.writers = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "sharded-db-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Returns whether the records that moved were copied to `name` right away (see rebalance()).
+    synchronized boolean addShard(String name, DataBase backend) {
+        Map<String, DataBase> shards = new LinkedHashMap<>(topology.ring.shards);
+        if (shards.putIfAbsent(name, backend) != null)
+            throw new IllegalArgumentException("Shard already exists: " + name);
+        return change(shards);
+    }
+
+    // The removed backend stays readable through the retired ring until rebalance() has copied its records away.
+    synchronized boolean removeShard(String name) {
+        Map<String, DataBase> shards = new LinkedHashMap<>(topology.ring.shards);
+        if (shards.remove(name) == null)
+            throw new IllegalArgumentException("No such shard: " + name);
+        if (shards.size() < replicationFactor)
+            throw new IllegalStateException("Removing " + name + " would leave fewer shards than the "
+                    + replicationFactor + " replicas each record needs.");
+        return change(shards);
+    }
+
+    // Copies every record held by any current or retired shard to each current owner that lacks it, then stops the
+    // find() fallback. Returns false, and keeps the fallback, if some backend cannot list its records.
+    synchronized boolean rebalance() {
+        Topology current = topology;
+        if (current.retired.isEmpty())
+            return true;
+        Map<DataBase, String> sources = new IdentityHashMap<>();
+        current.ring.shards.forEach((name, backend) -> sources.put(backend, name));
+        for (Ring retired : current.retired)
+            retired.shards.forEach((name, backend) -> sources.putIfAbsent(backend, name));
+        for (DataBase source : sources.keySet())
+            if (!(source instanceof ScannableDataBase))
+                return false;
+
+        Ring ring = current.ring;
+        for (DataBase source : sources.keySet()) {
+            // Copies are written after each source's scan, so a later source sees them and does not copy again.
+            Map<String, List<String>> missing = new LinkedHashMap<>();
+            ((ScannableDataBase) source).forEachRecord(record -> {
+                for (String owner : ring.owners(record, replicationFactor)) {
+                    DataBase target = ring.shards.get(owner);
+                    if (target != source && target.find(record).isEmpty())
+                        missing.computeIfAbsent(owner, name -> new ArrayList<>()).add(record);
+                }
+            });
+            missing.forEach((owner, records) -> ring.shards.get(owner).saveAll(records));
+        }
+        topology = new Topology(ring, List.of());
+        return true;
+    }
+
+    // Names of the shards holding `key`, primary first.
+    List<String> shardsFor(String key) {
+        return topology.ring.owners(key, replicationFactor);
+    }
+
+    @Override
+    public void save(String data) {
+        Ring ring = topology.ring;
+        for (String shard : ring.owners(data, replicationFactor))
+            ring.shards.get(shard).save(data);
+    }
+
+    @Override
+    public void saveAll(List<String> data) {
+        Ring ring = topology.ring;
+        Map<String, List<String>> groups = new LinkedHashMap<>();
+        for (String record : data)
+            for (String shard : ring.owners(record, replicationFactor))
+                groups.computeIfAbsent(shard, name -> new ArrayList<>()).add(record);
+        List<Future<?>> writes = new ArrayList<>(groups.size());
+        List<Map.Entry<String, List<String>>> entries = new ArrayList<>(groups.entrySet());
+        for (int i = 1; i < entries.size(); i++) {
+            Map.Entry<String, List<String>> group = entries.get(i);
+            writes.add(writers.submit(() -> ring.shards.get(group.getKey()).saveAll(group.getValue())));
+        }
+        RuntimeException failure = null;
+        if (!entries.isEmpty()) { // the first group is written on the calling thread
+            try {
+                ring.shards.get(entries.get(0).getKey()).saveAll(entries.get(0).getValue());
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                if (failure == null)
+                    failure = new IllegalStateException("Sharded save failed.", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while saving to shards.", e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    // Asks the replicas in ring order and returns the first hit. While a ring change is not rebalanced yet, a miss
+    // falls back to the owners under the retired rings (newest first), and a hit there is copied to the current owners.
+    @Override
+    public Optional<String> find(String data) {
+        Topology topology = this.topology;
+        Ring ring = topology.ring;
+        List<String> owners = ring.owners(data, replicationFactor);
+        for (String shard : owners) {
+            Optional<String> found = ring.shards.get(shard).find(data);
+            if (found.isPresent())
+                return found;
+        }
+        if (topology.retired.isEmpty())
+            return Optional.empty();
+        Set<DataBase> asked = Collections.newSetFromMap(new IdentityHashMap<>());
+        owners.forEach(shard -> asked.add(ring.shards.get(shard)));
+        for (Ring retired : topology.retired) {
+            for (String shard : retired.owners(data, replicationFactor)) {
+                DataBase backend = retired.shards.get(shard);
+                if (!asked.add(backend))
+                    continue;
+                Optional<String> found = backend.find(data);
+                if (found.isPresent()) {
+                    owners.forEach(owner -> ring.shards.get(owner).save(data));
+                    return found;
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public void close() {
+        writers.shutdown();
+    }
+
+    // Retires the current ring in favour of one over `shards`, then tries to rebalance. Called holding the monitor.
+    private boolean change(Map<String, DataBase> shards) {
+        Topology current = topology;
+        List<Ring> retired = new ArrayList<>(current.retired.size() + 1);
+        retired.add(current.ring);
+        retired.addAll(current.retired);
+        topology = new Topology(Ring.of(shards, virtualNodes), List.copyOf(retired));
+        return rebalance();
+    }
+
+    // The ring in use plus the rings it replaced, newest first, that find() still falls back to.
+    private record Topology(Ring ring, List<Ring> retired) {
+    }
+
+    // points[i] is a position on the ring, sorted ascending, owned by the shard named owners[i].
+    private record Ring(long[] points, String[] owners, Map<String, DataBase> shards) {
+        static Ring of(Map<String, DataBase> shards, int virtualNodes) {
+            long[][] entries = new long[shards.size() * virtualNodes][];
+            String[] names = shards.keySet().toArray(new String[0]);
+            int n = 0;
+            for (int s = 0; s < names.length; s++)
+                for (int v = 0; v < virtualNodes; v++)
+                    entries[n++] = new long[]{FingerprintSet.fingerprint(names[s] + "#" + v), s};
+            Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+            long[] points = new long[n];
+            String[] owners = new String[n];
+            for (int i = 0; i < n; i++) {
+                points[i] = entries[i][0];
+                owners[i] = names[(int) entries[i][1]];
+            }
+            return new Ring(points, owners, Map.copyOf(shards));
+        }
+
+        List<String> owners(String key, int replicationFactor) {
+            if (points.length == 0)
+                throw new IllegalStateException("ShardedDataBase has no shards.");
+            int wanted = Math.min(replicationFactor, shards.size());
+            List<String> result = new ArrayList<>(wanted);
+            int index = Arrays.binarySearch(points, FingerprintSet.fingerprint(key));
+            if (index < 0)
+                index = -index - 1;
+            for (int i = 0; result.size() < wanted; i++) {
+                String owner = owners[(index + i) % points.length];
+                if (!result.contains(owner))
+                    result.add(owner);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package design.principles.DIP.followed;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+// Renders DataBase statements piece by piece into a reused CharBuffer and encodes them into a reused byte buffer,
+// so no intermediate String is built per record. Finished statements are written to the OutputStream in one call
+// per flush: after each statement on its own, or once at the end of a batch().
+// An instance is not thread-safe: stdout() hands every thread its own pooled renderer. Those write through whatever
+// System.out is at flush time, so System.setOut redirects them; its lock is taken once per flush, not per record.
+final class StatementRenderer {
+    private static final OutputStream STDOUT = new OutputStream() {
+        @Override
+        public void write(int b) {
+            System.out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            System.out.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+    };
+    private static final ThreadLocal<StatementRenderer> STDOUT_RENDERERS =
+            ThreadLocal.withInitial(() -> new StatementRenderer(STDOUT, 8192));
+
+    private final OutputStream out;
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer chars = CharBuffer.allocate(256);
+    private int batchDepth;
+
+    StatementRenderer(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.bytes = ByteBuffer.allocate(bufferSize);
+    }
+
+    static StatementRenderer stdout() {
+        return STDOUT_RENDERERS.get();
+    }
+
+    // Runs `body` with this thread's stdout() statements held in the buffer, and writes them out once at the end
+    // (or whenever the buffer fills up) instead of once per statement.
+    static void batch(Runnable body) {
+        StatementRenderer renderer = stdout();
+        renderer.batchDepth++;
+        try {
+            body.run();
+        } finally {
+            if (--renderer.batchDepth == 0)
+                renderer.flush();
+        }
+    }
+
+    public StatementRenderer append(CharSequence text) {
+        ensureCapacity(text.length());
+        chars.append(text);
+        return this;
+    }
+
+    public StatementRenderer append(char c) {
+        ensureCapacity(1);
+        chars.put(c);
+        return this;
+    }
+
+    // Ends the current statement; it is written out right away unless a batch() is running on this renderer.
+    public void endStatement() {
+        endLine();
+        if (batchDepth == 0)
+            flush();
+    }
+
+    // Terminates the current statement and moves it into the output buffer, writing the buffer out only when full.
+    public StatementRenderer endLine() {
+        append('\n');
+        chars.flip();
+        while (encoder.encode(chars, bytes, true).isOverflow())
+            flush();
+        while (encoder.flush(bytes).isOverflow())
+            flush();
+        encoder.reset();
+        chars.clear();
+        return this;
+    }
+
+    public void flush() {
+        if (bytes.position() == 0)
+            return;
+        try {
+            out.write(bytes.array(), 0, bytes.position());
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bytes.clear();
+    }
+
+    private void ensureCapacity(int extra) {
+        if (chars.remaining() >= extra)
+            return;
+        CharBuffer larger = CharBuffer.allocate(Math.max(chars.capacity() * 2, chars.position() + extra));
+        chars.flip();
+        chars = larger.put(chars);
+    }
+}
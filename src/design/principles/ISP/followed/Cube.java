@@ -3,11 +3,21 @@ package design.principles.ISP.followed;
 public record Cube(double side) implements ThreeDimensionalShape {
     @Override
     public void area() {
-        System.out.println("Area of Cube : " + 6 * side * side);
+        System.out.println("Area of Cube : " + areaValue());
     }
 
     @Override
     public void volume() {
-        System.out.println("Volume of Cube : " + side * side * side);
+        System.out.println("Volume of Cube : " + volumeValue());
+    }
+
+    @Override
+    public double areaValue() {
+        return 6 * side * side;
+    }
+
+    @Override
+    public double volumeValue() {
+        return side * side * side;
     }
 }
@@ -0,0 +1,75 @@
+package design.principles.ISP.followed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Total area of a large mixed shape list: per-object areaValue() calls against ShapeColumns' column loops, and
+// areas(out) with the scalar kernels against the loaded ones (Vector API when built with -Pvector and run with
+// --add-modules jdk.incubator.vector), which must produce the same bits.
+public class ISPBulkShapes {
+    public static void main(String[] args) {
+        int shapes = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        int rounds = 20;
+
+        List<TwoDimensionalShape> list = new ArrayList<>(shapes);
+        ShapeColumns columns = new ShapeColumns(shapes / 3);
+        ShapeColumns scalar = new ShapeColumns(shapes / 3, ShapeKernels.SCALAR);
+        for (int i = 0; i < shapes; i++) {
+            double size = 1 + i % 100 / 10.0;
+            TwoDimensionalShape shape = switch (i % 3) {
+                case 0 -> new Square(size);
+                case 1 -> new Rectangle(size, size + 1);
+                default -> new Cube(size);
+            };
+            list.add(shape);
+            columns.add(shape);
+            scalar.add(shape);
+        }
+
+        double[] areas = new double[shapes];
+        double[] scalarAreas = new double[shapes];
+        for (int i = 0; i < rounds; i++) { // warm-up
+            perObject(list);
+            columns.totalArea();
+            columns.areas(areas);
+            scalar.areas(scalarAreas);
+        }
+
+        long start = System.nanoTime();
+        double objectTotal = 0;
+        for (int i = 0; i < rounds; i++)
+            objectTotal = perObject(list);
+        long objectNanos = (System.nanoTime() - start) / rounds;
+
+        start = System.nanoTime();
+        double columnTotal = 0;
+        for (int i = 0; i < rounds; i++)
+            columnTotal = columns.totalArea();
+        long columnNanos = (System.nanoTime() - start) / rounds;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            scalar.areas(scalarAreas);
+        long scalarNanos = (System.nanoTime() - start) / rounds;
+
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+            columns.areas(areas);
+        long areasNanos = (System.nanoTime() - start) / rounds;
+        if (!Arrays.equals(areas, scalarAreas))
+            throw new IllegalStateException(columns.kernels().name() + " kernels disagree with the scalar ones.");
+
+        System.out.printf("%,d shapes: per-object %,d us (total %.1f), columns %,d us (total %.1f)%n",
+                shapes, objectNanos / 1_000, objectTotal, columnNanos / 1_000, columnTotal);
+        System.out.printf("areas(out): scalar %,d us, %s %,d us%n", scalarNanos / 1_000, columns.kernels().name(),
+                areasNanos / 1_000);
+    }
+
+    private static double perObject(List<TwoDimensionalShape> shapes) {
+        double total = 0;
+        for (TwoDimensionalShape shape : shapes)
+            total += shape.areaValue();
+        return total;
+    }
+}
@@ -1,11 +1,18 @@
 package design.principles.ISP.followed;
 
-interface TwoDimensionalShape {
+import java.util.List;
+
+// Sealed, so batch code can split a mixed list by concrete record type and know no other shape exists.
+sealed interface TwoDimensionalShape permits Square, Rectangle, ThreeDimensionalShape {
     void area();
+
+    double areaValue();
 }
 
-interface ThreeDimensionalShape extends TwoDimensionalShape {
+sealed interface ThreeDimensionalShape extends TwoDimensionalShape permits Cube {
     void volume();
+
+    double volumeValue();
 }
 
 public class ISPFollowed {
@@ -19,5 +26,11 @@ public class ISPFollowed {
         ThreeDimensionalShape cube = new Cube(3);
         cube.area();
         cube.volume();
+
+        // Bulk engine: shapes stored column-wise, areas and volumes computed per column in one pass.
+        ShapeColumns columns = new ShapeColumns(4);
+        List.of(square, rectangle, cube, new Cube(2)).forEach(columns::add);
+        System.out.println("\nTotal area of " + columns.size() + " shapes : " + columns.totalArea());
+        System.out.println("Total volume : " + columns.totalVolume());
     }
 }
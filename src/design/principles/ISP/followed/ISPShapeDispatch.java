@@ -0,0 +1,62 @@
+package design.principles.ISP.followed;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// Total area of a shuffled shape list with 1, 2 and 3 concrete types: one areaValue() call site over the
+// mixed list (monomorphic, bimorphic, then megamorphic) against ShapeBatch's per-type loops.
+// All mixes run in one JVM, so the mixed-list call site keeps the type profile of the mixes before it.
+// Heap for 10M shapes: run with -Xmx2g or pass a smaller count.
+public class ISPShapeDispatch {
+    public static void main(String[] args) {
+        int shapes = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = 10;
+        for (int types = 1; types <= 3; types++) {
+            List<TwoDimensionalShape> list = mixed(shapes, types, new Random(42));
+            ShapeBatch batch = ShapeBatch.of(list);
+
+            for (int i = 0; i < rounds; i++) { // warm-up
+                perObject(list);
+                batch.totalArea();
+            }
+
+            long start = System.nanoTime();
+            double mixedTotal = 0;
+            for (int i = 0; i < rounds; i++)
+                mixedTotal = perObject(list);
+            long mixedNanos = (System.nanoTime() - start) / rounds;
+
+            start = System.nanoTime();
+            double batchTotal = 0;
+            for (int i = 0; i < rounds; i++)
+                batchTotal = batch.totalArea();
+            long batchNanos = (System.nanoTime() - start) / rounds;
+
+            System.out.printf("%,d shapes of %d types: mixed list %,d ms (total %.1f), grouped %,d ms (total %.1f)%n",
+                    shapes, types, mixedNanos / 1_000_000, mixedTotal, batchNanos / 1_000_000, batchTotal);
+        }
+    }
+
+    private static List<TwoDimensionalShape> mixed(int shapes, int types, Random random) {
+        List<TwoDimensionalShape> list = new ArrayList<>(shapes);
+        for (int i = 0; i < shapes; i++) {
+            double size = 1 + i % 100 / 10.0;
+            list.add(switch (i % types) {
+                case 0 -> new Square(size);
+                case 1 -> new Rectangle(size, size + 1);
+                default -> new Cube(size);
+            });
+        }
+        Collections.shuffle(list, random);
+        return list;
+    }
+
+    private static double perObject(List<TwoDimensionalShape> shapes) {
+        double total = 0;
+        for (TwoDimensionalShape shape : shapes)
+            total += shape.areaValue();
+        return total;
+    }
+}
@@ -3,6 +3,11 @@ package design.principles.ISP.followed;
 public record Rectangle(double length, double breadth) implements TwoDimensionalShape {
     @Override
     public void area() {
-        System.out.println("Area of Rectangle : " + length * breadth);
+        System.out.println("Area of Rectangle : " + areaValue());
+    }
+
+    @Override
+    public double areaValue() {
+        return length * breadth;
     }
 }
@@ -0,0 +1,53 @@
+package design.principles.ISP.followed;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// A mixed shape list split by concrete record type. Walking a List<TwoDimensionalShape> and calling areaValue()
+// sees three receiver classes at one call site, which C2 treats as megamorphic and will not inline; here each
+// loop only ever sees one final record class, so the call is direct and inlined.
+// The split relies on TwoDimensionalShape being sealed: Square, Rectangle and Cube are all the shapes there are.
+final class ShapeBatch {
+    private final List<Square> squares = new ArrayList<>();
+    private final List<Rectangle> rectangles = new ArrayList<>();
+    private final List<Cube> cubes = new ArrayList<>();
+
+    static ShapeBatch of(List<? extends TwoDimensionalShape> shapes) {
+        ShapeBatch batch = new ShapeBatch();
+        shapes.forEach(batch::add);
+        return batch;
+    }
+
+    void add(TwoDimensionalShape shape) {
+        if (shape instanceof Square square)
+            squares.add(square);
+        else if (shape instanceof Rectangle rectangle)
+            rectangles.add(rectangle);
+        else if (shape instanceof Cube cube)
+            cubes.add(cube);
+        else
+            throw new AssertionError("TwoDimensionalShape is sealed: " + shape);
+    }
+
+    int size() {
+        return squares.size() + rectangles.size() + cubes.size();
+    }
+
+    double totalArea() {
+        double total = 0;
+        for (Square square : squares)
+            total += square.areaValue();
+        for (Rectangle rectangle : rectangles)
+            total += rectangle.areaValue();
+        for (Cube cube : cubes)
+            total += cube.areaValue();
+        return total;
+    }
+
+    double totalVolume() {
+        double total = 0;
+        for (Cube cube : cubes)
+            total += cube.volumeValue();
+        return total;
+    }
+}
@@ -0,0 +1,102 @@
+package design.principles.ISP.followed;
+
+import java.util.Arrays;
+
+// Column-wise shape store for bulk geometry: each shape kind has its own primitive columns (square side,
+// rectangle length and breadth, cube side), so area and volume are computed by branch-free loops over double[]
+// with no per-object virtual call or pointer chase. The element-wise areas()/volumes() loops run on ShapeKernels:
+// Vector API kernels when available, the scalar loops otherwise. The totals are ordered double sums and stay scalar,
+// so they do not depend on the lane width, but still stream through contiguous memory.
+// Adding shapes is single-threaded; the kernels only read.
+final class ShapeColumns {
+    private static final ShapeKernels DEFAULT_KERNELS = ShapeKernels.load();
+
+    private final ShapeKernels kernels;
+    private double[] squareSide;
+    private double[] rectangleLength;
+    private double[] rectangleBreadth;
+    private double[] cubeSide;
+    private int squares;
+    private int rectangles;
+    private int cubes;
+
+    ShapeColumns(int initialCapacity) {
+        this(initialCapacity, DEFAULT_KERNELS);
+    }
+
+    ShapeColumns(int initialCapacity, ShapeKernels kernels) {
+        this.kernels = kernels;
+        int capacity = Math.max(initialCapacity, 16);
+        this.squareSide = new double[capacity];
+        this.rectangleLength = new double[capacity];
+        this.rectangleBreadth = new double[capacity];
+        this.cubeSide = new double[capacity];
+    }
+
+    void add(TwoDimensionalShape shape) {
+        if (shape instanceof Square square) {
+            if (squares == squareSide.length)
+                squareSide = grow(squareSide);
+            squareSide[squares++] = square.side();
+        } else if (shape instanceof Rectangle rectangle) {
+            if (rectangles == rectangleLength.length) {
+                rectangleLength = grow(rectangleLength);
+                rectangleBreadth = grow(rectangleBreadth);
+            }
+            rectangleLength[rectangles] = rectangle.length();
+            rectangleBreadth[rectangles++] = rectangle.breadth();
+        } else if (shape instanceof Cube cube) {
+            if (cubes == cubeSide.length)
+                cubeSide = grow(cubeSide);
+            cubeSide[cubes++] = cube.side();
+        } else {
+            throw new AssertionError("TwoDimensionalShape is sealed: " + shape);
+        }
+    }
+
+    int size() {
+        return squares + rectangles + cubes;
+    }
+
+    ShapeKernels kernels() {
+        return kernels;
+    }
+
+    double totalArea() {
+        double total = 0;
+        for (int i = 0; i < squares; i++)
+            total += squareSide[i] * squareSide[i];
+        for (int i = 0; i < rectangles; i++)
+            total += rectangleLength[i] * rectangleBreadth[i];
+        for (int i = 0; i < cubes; i++)
+            total += 6 * cubeSide[i] * cubeSide[i];
+        return total;
+    }
+
+    double totalVolume() {
+        double total = 0;
+        for (int i = 0; i < cubes; i++)
+            total += cubeSide[i] * cubeSide[i] * cubeSide[i];
+        return total;
+    }
+
+    // Writes each shape's area into `out`: squares first, then rectangles, then cubes, each in insertion order.
+    void areas(double[] out) {
+        if (out.length < size())
+            throw new IllegalArgumentException("Output holds " + out.length + " areas, need " + size() + ".");
+        kernels.scaledSquare(1, squareSide, out, 0, squares);
+        kernels.multiply(rectangleLength, rectangleBreadth, out, squares, rectangles);
+        kernels.scaledSquare(6, cubeSide, out, squares + rectangles, cubes);
+    }
+
+    // Writes each cube's volume into `out`, in insertion order.
+    void volumes(double[] out) {
+        if (out.length < cubes)
+            throw new IllegalArgumentException("Output holds " + out.length + " volumes, need " + cubes + ".");
+        kernels.cube(cubeSide, out, 0, cubes);
+    }
+
+    private static double[] grow(double[] column) {
+        return Arrays.copyOf(column, column.length + (column.length >> 1));
+    }
+}
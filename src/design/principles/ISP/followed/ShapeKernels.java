@@ -0,0 +1,56 @@
+package design.principles.ISP.followed;
+
+// The element-wise loops behind ShapeColumns.areas() and volumes(). SCALAR is plain Java, which C2 may or may not
+// auto-vectorize; VectorShapeKernels (under vector/, compiled only by the `vector` Maven profile) spells the same
+// loops out with the jdk.incubator.vector API, one hardware vector of lanes per step. load() picks it when it was
+// compiled in and the JVM runs with --add-modules jdk.incubator.vector, and falls back to SCALAR otherwise.
+// Both multiply in the same order, so their results are bit-identical.
+interface ShapeKernels {
+    ShapeKernels SCALAR = new ScalarShapeKernels();
+
+    String name();
+
+    // out[offset + i] = a[i] * b[i]
+    void multiply(double[] a, double[] b, double[] out, int offset, int n);
+
+    // out[offset + i] = factor * side[i] * side[i]
+    void scaledSquare(double factor, double[] side, double[] out, int offset, int n);
+
+    // out[offset + i] = side[i] * side[i] * side[i]
+    void cube(double[] side, double[] out, int offset, int n);
+
+    static ShapeKernels load() {
+        try {
+            return (ShapeKernels) Class.forName("design.principles.ISP.followed.VectorShapeKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Not compiled in, or jdk.incubator.vector is not in the module graph.
+            return SCALAR;
+        }
+    }
+}
+
+final class ScalarShapeKernels implements ShapeKernels {
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void multiply(double[] a, double[] b, double[] out, int offset, int n) {
+        for (int i = 0; i < n; i++)
+            out[offset + i] = a[i] * b[i];
+    }
+
+    @Override
+    public void scaledSquare(double factor, double[] side, double[] out, int offset, int n) {
+        for (int i = 0; i < n; i++)
+            out[offset + i] = factor * side[i] * side[i];
+    }
+
+    @Override
+    public void cube(double[] side, double[] out, int offset, int n) {
+        for (int i = 0; i < n; i++)
+            out[offset + i] = side[i] * side[i] * side[i];
+    }
+}
@@ -3,6 +3,11 @@ package design.principles.ISP.followed;
 public record Square(double side) implements TwoDimensionalShape {
     @Override
     public void area() {
-        System.out.println("Area of Square : " + side * side);
+        System.out.println("Area of Square : " + areaValue());
+    }
+
+    @Override
+    public double areaValue() {
+        return side * side;
     }
 }
@@ -2,7 +2,7 @@ package design.principles.ISP.violated;
 
 import java.util.List;
 
-interface IShape {
+sealed interface IShape permits Square, Rectangle, Cube {
     void area();
     void volume();
 }
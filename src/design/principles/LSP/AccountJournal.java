@@ -0,0 +1,330 @@
+package design.principles.LSP;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Durable AccountStore: every successful open/deposit/withdraw is appended to a binary write-ahead journal
+// before the call returns. Concurrent callers share fsyncs (group commit): whoever finds no flush running
+// writes everything appended so far and forces it once for the whole group.
+// Every snapshotInterval records the full store is written to a snapshot and the journal starts a new generation.
+// Recovery loads the snapshot, then replays the journal through a MappedByteBuffer and cuts off a torn tail.
+//
+// Journal: header [int magic][long generation], then 18-byte records
+//          [byte op][byte type][int account][long cents][int crc32 of the first 14 bytes].
+// Snapshot: [int magic][long generation][int accounts] ([byte type][long cents]) * accounts [int crc32 of all before].
+final class AccountJournal implements AutoCloseable {
+    private static final int JOURNAL_MAGIC = 0x4A524E4C;
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    private static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int RECORD_BYTES = 2 + Integer.BYTES + Long.BYTES + Integer.BYTES;
+    private static final byte OPEN = 1;
+    private static final byte DEPOSIT = 2;
+    private static final byte WITHDRAW = 3;
+
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final int snapshotInterval;
+    private final AccountStore store;
+    private final CRC32 crc = new CRC32();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition durable = lock.newCondition();
+
+    // Guarded by lock.
+    private FileChannel channel;
+    private long generation;
+    private ByteBuffer pending = ByteBuffer.allocate(64 * RECORD_BYTES);
+    private ByteBuffer flushingBuffer = ByteBuffer.allocate(64 * RECORD_BYTES);
+    private long appendedRecords;
+    private long durableRecords;
+    private long recordsSinceSnapshot;
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure;
+
+    private AccountJournal(Path directory, int snapshotInterval, AccountStore store) {
+        this.journalPath = directory.resolve("accounts.journal");
+        this.snapshotPath = directory.resolve("accounts.snapshot");
+        this.snapshotInterval = snapshotInterval;
+        this.store = store;
+    }
+
+    // Rebuilds the store from `directory` (creating it if needed) and opens the journal for appends.
+    static AccountJournal open(Path directory, int snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        AccountJournal journal = new AccountJournal(directory, snapshotInterval, new AccountStore(1024));
+        journal.recover();
+        return journal;
+    }
+
+    AccountStore store() {
+        return store;
+    }
+
+    int open(AccountType type, double initialBalance) {
+        lock.lock();
+        try {
+            checkWritable();
+            int id = store.open(type, initialBalance);
+            commit(append(OPEN, type, id, store.cents(id)));
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Same contract as AccountStore.deposit; a successful deposit is durable once this returns.
+    long deposit(int id, long amountCents) {
+        return apply(DEPOSIT, id, amountCents);
+    }
+
+    // Same contract as AccountStore.withdraw; a successful withdrawal is durable once this returns.
+    long withdraw(int id, long amountCents) {
+        return apply(WITHDRAW, id, amountCents);
+    }
+
+    private long apply(byte op, int id, long amountCents) {
+        lock.lock();
+        try {
+            checkWritable();
+            // Applying and appending under one lock keeps the journal in the order the store saw the updates,
+            // so replay reproduces every accepted withdrawal exactly.
+            long result = op == DEPOSIT ? store.deposit(id, amountCents) : store.withdraw(id, amountCents);
+            if (result != AtomicBalance.REJECTED)
+                commit(append(op, store.type(id), id, amountCents));
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void snapshot() {
+        lock.lock();
+        try {
+            checkWritable();
+            writeSnapshot();
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed)
+                return;
+            if (failure == null)
+                awaitAllDurable();
+            closed = true;
+            channel.close();
+            if (failure != null)
+                throw failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private long append(byte op, AccountType type, int id, long cents) {
+        if (pending.remaining() < RECORD_BYTES) {
+            ByteBuffer larger = ByteBuffer.allocate(pending.capacity() * 2);
+            pending.flip();
+            pending = larger.put(pending);
+        }
+        int start = pending.position();
+        pending.put(op).put((byte) type.ordinal()).putInt(id).putLong(cents);
+        crc.reset();
+        crc.update(pending.array(), start, RECORD_BYTES - Integer.BYTES);
+        pending.putInt((int) crc.getValue());
+        recordsSinceSnapshot++;
+        return ++appendedRecords;
+    }
+
+    // Called with the lock held. Returns once record `sequence` is on disk, flushing as the group leader if needed.
+    private void commit(long sequence) {
+        try {
+            awaitDurable(sequence);
+            if (recordsSinceSnapshot >= snapshotInterval)
+                writeSnapshot();
+        } catch (IOException e) {
+            failure = e;
+            durable.signalAll();
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void awaitDurable(long sequence) throws IOException {
+        while (durableRecords < sequence) {
+            if (failure != null)
+                throw failure;
+            if (flushing) {
+                durable.awaitUninterruptibly();
+                continue;
+            }
+            flushing = true;
+            ByteBuffer batch = pending;
+            pending = flushingBuffer;
+            flushingBuffer = batch;
+            long target = appendedRecords;
+            lock.unlock();
+            try {
+                batch.flip();
+                while (batch.hasRemaining())
+                    channel.write(batch);
+                channel.force(false);
+            } finally {
+                batch.clear();
+                lock.lock();
+                flushing = false;
+                durable.signalAll();
+            }
+            durableRecords = target;
+        }
+    }
+
+    private void awaitAllDurable() throws IOException {
+        while (flushing || durableRecords < appendedRecords) {
+            if (flushing)
+                durable.awaitUninterruptibly();
+            else
+                awaitDurable(appendedRecords);
+        }
+    }
+
+    // Called with the lock held: no update can reach the store until the snapshot and the new journal are in place.
+    private void writeSnapshot() throws IOException {
+        awaitAllDurable();
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        int accounts = store.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + Integer.BYTES + accounts * (1 + Long.BYTES) + Integer.BYTES);
+        buffer.putInt(SNAPSHOT_MAGIC).putLong(generation).putInt(accounts);
+        for (int id = 0; id < accounts; id++)
+            buffer.put((byte) store.type(id).ordinal()).putLong(store.cents(id));
+        crc.reset();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue()).flip();
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining())
+                out.write(buffer);
+            out.force(true);
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // The snapshot covers this generation; if we crash before the swap below, recovery skips the old journal.
+        channel.close();
+        channel = createJournal(generation + 1);
+        recordsSinceSnapshot = 0;
+    }
+
+    private FileChannel createJournal(long newGeneration) throws IOException {
+        Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(JOURNAL_MAGIC).putLong(newGeneration).flip();
+            while (header.hasRemaining())
+                out.write(header);
+            out.force(true);
+        }
+        Files.move(tmp, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        generation = newGeneration;
+        FileChannel opened = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+        opened.position(opened.size());
+        return opened;
+    }
+
+    private void recover() throws IOException {
+        long snapshotGeneration = Files.exists(snapshotPath) ? loadSnapshot() : 0;
+        if (!Files.exists(journalPath)) {
+            channel = createJournal(snapshotGeneration + 1);
+            return;
+        }
+        try (FileChannel in = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            MappedByteBuffer journal = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            boolean intactHeader = journal.remaining() >= HEADER_BYTES && journal.getInt() == JOURNAL_MAGIC;
+            long journalGeneration = intactHeader ? journal.getLong() : 0;
+            if (journalGeneration <= snapshotGeneration) {
+                // Torn header, or a journal the snapshot already covers.
+                channel = createJournal(snapshotGeneration + 1);
+                return;
+            }
+            generation = journalGeneration;
+            long validEnd = replay(journal);
+            channel = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+            channel.truncate(validEnd);
+            channel.position(validEnd);
+        }
+    }
+
+    // Applies every intact record and returns the offset just past the last one. Fields are read from the mapping
+    // in place, and only once the record's checksum matches: a torn or corrupt tail may hold any bytes.
+    private long replay(MappedByteBuffer journal) {
+        int payload = RECORD_BYTES - Integer.BYTES;
+        while (journal.remaining() >= RECORD_BYTES) {
+            int at = journal.position();
+            crc.reset();
+            crc.update(journal.slice(at, payload));
+            if (journal.getInt(at + payload) != (int) crc.getValue())
+                break;
+            byte op = journal.get(at);
+            byte type = journal.get(at + 1);
+            int id = journal.getInt(at + 2);
+            long cents = journal.getLong(at + 2 + Integer.BYTES);
+            journal.position(at + RECORD_BYTES);
+            switch (op) {
+                case OPEN -> {
+                    if (store.openCents(AccountType.of(type), cents) != id)
+                        throw new IllegalStateException("Journal opens account " + id + " out of order.");
+                }
+                case DEPOSIT -> store.deposit(id, cents);
+                case WITHDRAW -> {
+                    if (store.withdraw(id, cents) == AtomicBalance.REJECTED)
+                        throw new IllegalStateException("Journaled withdrawal from account " + id + " cannot be replayed.");
+                }
+                default -> throw new IllegalStateException("Unknown journal operation " + op);
+            }
+            recordsSinceSnapshot++;
+        }
+        return journal.position();
+    }
+
+    private long loadSnapshot() throws IOException {
+        try (FileChannel in = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            MappedByteBuffer snapshot = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int length = snapshot.remaining();
+            if (length < HEADER_BYTES + 2 * Integer.BYTES || snapshot.getInt() != SNAPSHOT_MAGIC)
+                throw new IOException("Corrupt account snapshot " + snapshotPath);
+            long snapshotGeneration = snapshot.getLong();
+            int accounts = snapshot.getInt();
+            byte[] body = new byte[length - Integer.BYTES];
+            snapshot.get(0, body);
+            crc.reset();
+            crc.update(body);
+            if (length != HEADER_BYTES + 2 * Integer.BYTES + accounts * (1 + Long.BYTES)
+                    || snapshot.getInt(length - Integer.BYTES) != (int) crc.getValue())
+                throw new IOException("Corrupt account snapshot " + snapshotPath);
+            for (int i = 0; i < accounts; i++)
+                store.openCents(AccountType.of(snapshot.get()), snapshot.getLong());
+            return snapshotGeneration;
+        }
+    }
+
+    private void checkWritable() {
+        if (closed)
+            throw new IllegalStateException("Account journal is closed.");
+        if (failure != null)
+            throw new UncheckedIOException("Account journal failed earlier.", failure);
+    }
+}
@@ -0,0 +1,163 @@
+package design.principles.LSP;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Objects;
+
+enum AccountType {
+    SAVING, SALARY, FD;
+
+    private static final AccountType[] VALUES = values();
+
+    static AccountType of(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    boolean withdrawable() {
+        return this != FD;
+    }
+}
+
+// Struct-of-arrays ledger: account i is balances[i] (fixed-point cents) and types[i], roughly 9 bytes per account
+// instead of an account object, an AtomicBalance and an AtomicLong each. Balances are updated with the same
+// CAS rules as AtomicBalance, through a VarHandle on the array element.
+// Opening accounts is single-threaded setup; deposits and withdrawals may then run from any thread.
+final class AccountStore {
+    private static final VarHandle BALANCE = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private long[] balances;
+    private byte[] types;
+    private int size;
+
+    AccountStore(int initialCapacity) {
+        this.balances = new long[Math.max(initialCapacity, 16)];
+        this.types = new byte[balances.length];
+    }
+
+    // Returns the new account's id.
+    int open(AccountType type, double initialBalance) {
+        return openCents(type, AtomicBalance.toCents(initialBalance));
+    }
+
+    int openCents(AccountType type, long cents) {
+        if (cents < 0)
+            throw new IllegalArgumentException("Initial balance must not be negative.");
+        if (size == balances.length) {
+            int capacity = balances.length + (balances.length >> 1);
+            balances = Arrays.copyOf(balances, capacity);
+            types = Arrays.copyOf(types, capacity);
+        }
+        balances[size] = cents;
+        types[size] = (byte) type.ordinal();
+        return size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    AccountType type(int id) {
+        return AccountType.of(types[checkId(id)]);
+    }
+
+    long cents(int id) {
+        return (long) BALANCE.getVolatile(balances, checkId(id));
+    }
+
+    // Returns the new balance in cents, or AtomicBalance.REJECTED for a non-positive amount or one that would
+    // overflow the balance.
+    long deposit(int id, long amountCents) {
+        checkId(id);
+        if (amountCents <= 0)
+            return AtomicBalance.REJECTED;
+        while (true) {
+            long current = (long) BALANCE.getVolatile(balances, id);
+            if (current > Long.MAX_VALUE - amountCents)
+                return AtomicBalance.REJECTED;
+            if (BALANCE.compareAndSet(balances, id, current, current + amountCents))
+                return current + amountCents;
+            Thread.onSpinWait();
+        }
+    }
+
+    // Returns the new balance in cents, or AtomicBalance.REJECTED for a non-positive amount,
+    // insufficient funds or an account type that does not allow withdrawals.
+    long withdraw(int id, long amountCents) {
+        if (amountCents <= 0 || !type(id).withdrawable())
+            return AtomicBalance.REJECTED;
+        while (true) {
+            long current = (long) BALANCE.getVolatile(balances, id);
+            if (amountCents > current)
+                return AtomicBalance.REJECTED;
+            if (BALANCE.compareAndSet(balances, id, current, current - amountCents))
+                return current - amountCents;
+            Thread.onSpinWait();
+        }
+    }
+
+    // Unconditionally adds `deltaCents` (which may be negative); only for undoing a leg of a failed transfer.
+    void adjust(int id, long deltaCents) {
+        BALANCE.getAndAdd(balances, checkId(id), deltaCents);
+    }
+
+    // Applies one settlement to accounts [from, to): each balance gains its type's interest and flat credit from
+    // `rates`, and the credited cents are added to creditedByType[type ordinal]. An account whose credit would
+    // overflow its balance is left unchanged, as deposit() rejects it; returns how many were. Plain array access,
+    // no CAS: run it only while no deposits or withdrawals are in flight, as in an end-of-day batch window.
+    int settle(int from, int to, RateTable rates, long[] creditedByType) {
+        Objects.checkFromToIndex(from, to, size);
+        int rejected = 0;
+        for (int id = from; id < to; id++) {
+            int type = types[id];
+            long credit;
+            try {
+                credit = rates.credit(type, balances[id]);
+                balances[id] = Math.addExact(balances[id], credit);
+            } catch (ArithmeticException e) {
+                rejected++;
+                continue;
+            }
+            creditedByType[type] += credit;
+        }
+        return rejected;
+    }
+
+    // Flyweight views: a view holds only the store and an id, so callers written against the
+    // account interfaces can work on the store without a per-account object living on the heap.
+    DepositOnlyAccount depositOnly(int id) {
+        checkId(id);
+        return new DepositView(this, id);
+    }
+
+    WithDrawableAccount withDrawable(int id) {
+        if (!type(id).withdrawable())
+            throw new IllegalArgumentException("Account " + id + " of type " + type(id) + " does not allow withdrawals.");
+        return new WithDrawableView(this, id);
+    }
+
+    int checkId(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("No account with id " + id);
+        return id;
+    }
+
+    record DepositView(AccountStore store, int id) implements DepositOnlyAccount {
+        @Override
+        public void deposit(double amount) {
+            store.deposit(id, AtomicBalance.toCents(amount));
+        }
+    }
+
+    record WithDrawableView(AccountStore store, int id) implements WithDrawableAccount {
+        @Override
+        public void deposit(double amount) {
+            store.deposit(id, AtomicBalance.toCents(amount));
+        }
+
+        @Override
+        public void withdraw(double amount) {
+            store.withdraw(id, AtomicBalance.toCents(amount));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package design.principles.LSP;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Thread-safe account balance held as fixed-point cents and updated with CAS only, so every account
+// scales independently across cores and concurrent deposits/withdrawals never lose an update.
+final class AtomicBalance {
+    static final long REJECTED = -1;
+
+    private final AtomicLong cents;
+
+    AtomicBalance(double initialBalance) {
+        this(toCents(initialBalance));
+    }
+
+    AtomicBalance(long initialCents) {
+        if (initialCents < 0)
+            throw new IllegalArgumentException("Initial balance must not be negative.");
+        this.cents = new AtomicLong(initialCents);
+    }
+
+    static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    long cents() {
+        return cents.get();
+    }
+
+    double amount() {
+        return toAmount(cents.get());
+    }
+
+    // Returns the new balance in cents, or REJECTED for a non-positive amount or one that would overflow the balance.
+    long deposit(long amountCents) {
+        if (amountCents <= 0)
+            return REJECTED;
+        while (true) {
+            long current = cents.get();
+            if (current > Long.MAX_VALUE - amountCents)
+                return REJECTED;
+            if (cents.compareAndSet(current, current + amountCents))
+                return current + amountCents;
+            Thread.onSpinWait();
+        }
+    }
+
+    // The funds check and the debit happen in one CAS, so two racing withdrawals can never overdraw.
+    // Returns the new balance in cents, or REJECTED for a non-positive amount or insufficient funds.
+    long withdraw(long amountCents) {
+        if (amountCents <= 0)
+            return REJECTED;
+        while (true) {
+            long current = cents.get();
+            if (amountCents > current)
+                return REJECTED;
+            if (cents.compareAndSet(current, current - amountCents))
+                return current - amountCents;
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package design.principles.LSP;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Heap footprint of one object per account versus the struct-of-arrays AccountStore.
+// Run with a heap large enough for the object model, e.g. -Xmx4g for 10M accounts.
+public class LSPAccountStore {
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0 ? new int[]{Integer.parseInt(args[0])} : new int[]{1_000_000, 10_000_000};
+        for (int accounts : sizes) {
+            long objectsBytes = measure(() -> {
+                List<DepositOnlyAccount> list = new ArrayList<>(accounts);
+                for (int i = 0; i < accounts; i++)
+                    list.add(switch (i % 3) {
+                        case 0 -> new SavingAccount(1000);
+                        case 1 -> new SalaryAccount(2000);
+                        default -> new FDAccount(1000);
+                    });
+                return list;
+            });
+            long storeBytes = measure(() -> {
+                AccountStore store = new AccountStore(accounts);
+                for (int i = 0; i < accounts; i++)
+                    store.open(AccountType.of(i % 3), i % 3 == 1 ? 2000 : 1000);
+                return store;
+            });
+            System.out.printf("%,d accounts: object-per-account %,d MB, AccountStore %,d MB%n",
+                    accounts, objectsBytes >> 20, storeBytes >> 20);
+        }
+    }
+
+    private static long measure(Supplier<Object> allocation) {
+        long before = usedAfterGc();
+        Object retained = allocation.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,136 @@
+package design.principles.LSP;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Classifies accounts once, up front, by their capability mask, remembering per position whether the account
+// may be withdrawn from. performTransactions then runs one straight loop in the original order: no
+// UnsupportedOperationException per FD account as in BankClient, and no instanceof per call as in BanksClient.
+// The mask is a class-level fact, so it is asked of the first account of each class and cached for the class.
+// Accounts that cannot even take a deposit are left out of the loop and listed in `skipped`.
+record CapabilityBankClient(List<Account> accounts, BitSet withdrawable, List<Account> skipped) {
+    // One cell per class, filled by the first account of that class seen; -1 until then. Racing fills store the
+    // same value, so the cell needs no synchronization.
+    private static final ClassValue<int[]> MASKS = new ClassValue<>() {
+        @Override
+        protected int[] computeValue(Class<?> type) {
+            return new int[] {-1};
+        }
+    };
+
+    static CapabilityBankClient of(List<Account> accounts) {
+        List<Account> usable = new ArrayList<>(accounts.size());
+        BitSet withdrawable = new BitSet(accounts.size());
+        List<Account> skipped = new ArrayList<>();
+        for (Account account : accounts) {
+            int mask = capabilities(account);
+            if ((mask & Account.DEPOSIT) == 0) {
+                skipped.add(account);
+                continue;
+            }
+            if ((mask & Account.WITHDRAW) != 0)
+                withdrawable.set(usable.size());
+            usable.add(account);
+        }
+        return new CapabilityBankClient(List.copyOf(usable), withdrawable, List.copyOf(skipped));
+    }
+
+    private static int capabilities(Account account) {
+        int[] cell = MASKS.get(account.getClass());
+        int mask = cell[0];
+        if (mask < 0)
+            cell[0] = mask = account.capabilities();
+        return mask;
+    }
+
+    public void performTransactions() {
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            System.out.println("\nUsing account: " + account.getClass().getSimpleName());
+            account.deposit(500);
+            if (withdrawable.get(i))
+                account.withdraw(200);
+        }
+    }
+}
+
+// Demo, then a rough cost comparison of the three dispatch styles on a mixed list with output discarded.
+// Checked first: capabilities() is asked once per class, and an account without DEPOSIT is reported as skipped.
+public class LSPCapabilityDispatch {
+    public static void main(String[] args) {
+        checkMaskCachedAndSkipsReported();
+        List<Account> accounts = List.of(
+                new SavingsAccount(1000),
+                new CurrentAccount(2000),
+                new FixedDepositAccount()
+        );
+        CapabilityBankClient.of(accounts).performTransactions();
+
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 300_000;
+        List<Account> mixed = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            mixed.add(switch (i % 3) {
+                case 0 -> new SavingsAccount(1000);
+                case 1 -> new CurrentAccount(2000);
+                default -> new FixedDepositAccount();
+            });
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // Clients are built outside the timed region: CapabilityBankClient classifies once and is then reused.
+            BankClient bankClient = new BankClient(mixed);
+            BanksClient banksClient = new BanksClient(mixed);
+            CapabilityBankClient capabilityClient = CapabilityBankClient.of(mixed);
+            for (int round = 0; round < 3; round++) {
+                long exceptions = time(bankClient::performTransactions);
+                long typeChecks = time(banksClient::performTransactions);
+                long capabilities = time(capabilityClient::performTransactions);
+                if (round == 2)
+                    console.printf("%n%,d mixed accounts: exceptions %,d ms, instanceof %,d ms, capability mask %,d ms%n",
+                            size, exceptions, typeChecks, capabilities);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static void checkMaskCachedAndSkipsReported() {
+        int[] asked = new int[1];
+        final class Frozen implements Account {
+            @Override
+            public void deposit(double amount) {
+                throw new UnsupportedOperationException("Frozen accounts take no deposits.");
+            }
+
+            @Override
+            public void withdraw(double amount) {
+                throw new UnsupportedOperationException("Frozen accounts allow no withdrawals.");
+            }
+
+            @Override
+            public int capabilities() {
+                asked[0]++;
+                return 0;
+            }
+        }
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++)
+            accounts.add(i % 2 == 0 ? new Frozen() : new FixedDepositAccount());
+        CapabilityBankClient client = CapabilityBankClient.of(accounts);
+        if (asked[0] != 1)
+            throw new IllegalStateException("capabilities() was asked " + asked[0] + " times for one class.");
+        if (client.skipped().size() != 500 || client.accounts().size() != 500 || !client.withdrawable().isEmpty())
+            throw new IllegalStateException("Misclassified: " + client.accounts().size() + " usable, "
+                    + client.skipped().size() + " skipped, " + client.withdrawable().cardinality() + " withdrawable.");
+    }
+
+    private static long time(Runnable transactions) {
+        long start = System.nanoTime();
+        transactions.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
@@ -0,0 +1,61 @@
+package design.principles.LSP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Stress run for AtomicBalance: many threads move money between a few hot balances at random, then a deposit that
+// would overflow one of them must be rejected without changing it.
+// Every successful withdrawal is re-deposited elsewhere, so the total must be conserved and no balance may go negative.
+public class LSPConcurrent {
+    public static void main(String[] args) throws InterruptedException {
+        // Never fewer than 8 threads by default: on a machine with few cores they still interleave mid-CAS.
+        int threads = args.length > 0 ? Integer.parseInt(args[0])
+                : Math.max(8, Runtime.getRuntime().availableProcessors());
+        int operationsPerThread = 1_000_000;
+        AtomicBalance[] balances = new AtomicBalance[8];
+        for (int i = 0; i < balances.length; i++)
+            balances[i] = new AtomicBalance(1_000.00);
+        long expectedTotal = total(balances);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    AtomicBalance from = balances[random.nextInt(balances.length)];
+                    AtomicBalance to = balances[random.nextInt(balances.length)];
+                    long amount = 1 + random.nextInt(50_000);
+                    if (from.withdraw(amount) != AtomicBalance.REJECTED)
+                        to.deposit(amount);
+                }
+            }));
+        }
+        long start = System.nanoTime();
+        workers.forEach(Thread::start);
+        for (Thread worker : workers)
+            worker.join();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long actualTotal = total(balances);
+        for (AtomicBalance balance : balances)
+            if (balance.cents() < 0)
+                throw new IllegalStateException("Balance went negative: " + balance.cents());
+        if (actualTotal != expectedTotal)
+            throw new IllegalStateException("Money not conserved: expected " + expectedTotal + " but was " + actualTotal);
+
+        long before = balances[0].cents();
+        if (balances[0].deposit(Long.MAX_VALUE) != AtomicBalance.REJECTED || balances[0].cents() != before)
+            throw new IllegalStateException("Overflowing deposit was not rejected cleanly.");
+
+        System.out.println(threads + " threads x " + operationsPerThread + " transfers in " + elapsedMillis
+                + " ms, total conserved at " + AtomicBalance.toAmount(actualTotal));
+    }
+
+    private static long total(AtomicBalance[] balances) {
+        long total = 0;
+        for (AtomicBalance balance : balances)
+            total += balance.cents();
+        return total;
+    }
+}
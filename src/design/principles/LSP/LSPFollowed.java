@@ -1,5 +1,8 @@
 package design.principles.LSP;
 
+import design.principles.metrics.Metrics;
+import design.principles.metrics.OperationMetrics;
+
 import java.util.List;
 
 interface DepositOnlyAccount {
@@ -10,28 +13,36 @@ interface WithDrawableAccount extends DepositOnlyAccount {
     void withdraw(double amount);
 }
 
+// Each account type records deposit/withdraw latency and rejections under "<type>.deposit" / "<type>.withdraw".
 class SavingAccount implements WithDrawableAccount {
-    private double balance;
+    private static final OperationMetrics DEPOSITS = Metrics.operation("SavingAccount.deposit");
+    private static final OperationMetrics WITHDRAWALS = Metrics.operation("SavingAccount.withdraw");
+
+    private final AtomicBalance balance;
 
     public SavingAccount(double initialBalance) {
-        this.balance = initialBalance;
+        this.balance = new AtomicBalance(initialBalance);
     }
 
     @Override
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("Deposited: " + amount + ", New Balance: " + balance);
+        long start = DEPOSITS.start();
+        long newBalance = balance.deposit(AtomicBalance.toCents(amount));
+        DEPOSITS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Deposited: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
-            System.out.println("Deposit amount must be positive.");
+            System.out.println("Deposit rejected: amount must be positive and keep the balance in range.");
         }
     }
 
     @Override
     public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrew: " + amount + ", New Balance: " + balance);
+        long start = WITHDRAWALS.start();
+        long newBalance = balance.withdraw(AtomicBalance.toCents(amount));
+        WITHDRAWALS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Withdrew: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
             System.out.println("Insufficient funds or invalid withdrawal amount.");
         }
@@ -39,27 +50,34 @@ class SavingAccount implements WithDrawableAccount {
 }
 
 class SalaryAccount implements WithDrawableAccount {
-    private double balance;
+    private static final OperationMetrics DEPOSITS = Metrics.operation("SalaryAccount.deposit");
+    private static final OperationMetrics WITHDRAWALS = Metrics.operation("SalaryAccount.withdraw");
+
+    private final AtomicBalance balance;
 
     public SalaryAccount(double initialBalance) {
-        this.balance = initialBalance;
+        this.balance = new AtomicBalance(initialBalance);
     }
 
     @Override
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("Deposited: " + amount + ", New Balance: " + balance);
+        long start = DEPOSITS.start();
+        long newBalance = balance.deposit(AtomicBalance.toCents(amount));
+        DEPOSITS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Deposited: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
-            System.out.println("Deposit amount must be positive.");
+            System.out.println("Deposit rejected: amount must be positive and keep the balance in range.");
         }
     }
 
     @Override
     public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrew: " + amount + ", New Balance: " + balance);
+        long start = WITHDRAWALS.start();
+        long newBalance = balance.withdraw(AtomicBalance.toCents(amount));
+        WITHDRAWALS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Withdrew: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
             System.out.println("Insufficient funds or invalid withdrawal amount.");
         }
@@ -67,19 +85,23 @@ class SalaryAccount implements WithDrawableAccount {
 }
 
 class FDAccount implements DepositOnlyAccount {
-    private double balance;
+    private static final OperationMetrics DEPOSITS = Metrics.operation("FDAccount.deposit");
+
+    private final AtomicBalance balance;
 
     public FDAccount(double initialBalance) {
-        this.balance = initialBalance;
+        this.balance = new AtomicBalance(initialBalance);
     }
 
     @Override
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("FD Account Deposited With: " + amount + ", New Balance: " + balance);
+        long start = DEPOSITS.start();
+        long newBalance = balance.deposit(AtomicBalance.toCents(amount));
+        DEPOSITS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("FD Account Deposited With: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
-            System.out.println("Deposit amount must be positive.");
+            System.out.println("Deposit rejected: amount must be positive and keep the balance in range.");
         }
     }
 }
@@ -87,14 +109,29 @@ class FDAccount implements DepositOnlyAccount {
 record Client(List<DepositOnlyAccount> fdAccounts,
               List<WithDrawableAccount> drawableAccounts) {
     public void processFDTransactions() {
-        fdAccounts.forEach(account -> account.deposit(500));
+        fdAccounts.forEach(Client::fdTransaction);
     }
 
     public void processWithDrawableTransactions() {
-        drawableAccounts.forEach(account -> {
-            account.deposit(500);
-            account.withdraw(200);
-        });
+        drawableAccounts.forEach(Client::withDrawableTransaction);
+    }
+
+    // Parallel variants: same transactions and final balances, spread over the processor's pool.
+    public TransactionReport processFDTransactions(ParallelTransactionProcessor processor) {
+        return processor.process(fdAccounts, Client::fdTransaction);
+    }
+
+    public TransactionReport processWithDrawableTransactions(ParallelTransactionProcessor processor) {
+        return processor.process(drawableAccounts, Client::withDrawableTransaction);
+    }
+
+    private static void fdTransaction(DepositOnlyAccount account) {
+        account.deposit(500);
+    }
+
+    private static void withDrawableTransaction(WithDrawableAccount account) {
+        account.deposit(500);
+        account.withdraw(200);
     }
 }
 
@@ -116,5 +153,8 @@ public class LSPFollowed {
 
         System.out.println("\n---- FD Accounts Operations ----");
         client.processFDTransactions();
+
+        System.out.println("\n---- Metrics ----");
+        Metrics.report();
     }
 }
@@ -0,0 +1,175 @@
+package design.principles.LSP;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// Crash-recovery checks for AccountJournal, then a replay timing run.
+// 1. Clean restart restores every balance.
+// 2. A journal cut in the middle of its last record recovers everything before that record.
+// 3. A torn tail after a snapshot recovers the snapshot plus the intact journal suffix.
+// 4. A full-length but corrupt last record (here with an account type that does not exist) is cut off too.
+public class LSPJournalRecovery {
+    public static void main(String[] args) throws Exception {
+        Path directory = Files.createTempDirectory("account-journal");
+        try {
+            cleanRestart(directory.resolve("clean"));
+            tornRecord(directory.resolve("torn"));
+            tornAfterSnapshot(directory.resolve("snapshot"));
+            corruptRecord(directory.resolve("corrupt"));
+            replayTiming(directory.resolve("timing"), args.length > 0 ? Integer.parseInt(args[0]) : 200_000);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void cleanRestart(Path directory) throws IOException {
+        long[] expected;
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            expected = randomWorkload(journal, 100, 1_000);
+        }
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            check("clean restart", expected, journal.store());
+        }
+    }
+
+    private static void tornRecord(Path directory) throws IOException {
+        long[] expected;
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            randomWorkload(journal, 10, 100);
+            expected = balances(journal.store());
+            journal.deposit(0, 12_345);
+        }
+        // Simulate a crash while the last deposit was being written: keep only part of its record.
+        truncate(directory.resolve("accounts.journal"), 7);
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            check("torn record", expected, journal.store());
+            // The journal must accept appends right after the cut.
+            journal.deposit(0, 100);
+            expected[0] += 100;
+        }
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            check("append after torn record", expected, journal.store());
+        }
+    }
+
+    private static void tornAfterSnapshot(Path directory) throws IOException {
+        long[] expected;
+        try (AccountJournal journal = AccountJournal.open(directory, 250)) {
+            randomWorkload(journal, 50, 600);
+            expected = balances(journal.store());
+            journal.withdraw(firstWithdrawable(journal.store()), 1);
+        }
+        truncate(directory.resolve("accounts.journal"), 1);
+        try (AccountJournal journal = AccountJournal.open(directory, 250)) {
+            check("torn record after snapshot", expected, journal.store());
+        }
+    }
+
+    private static void corruptRecord(Path directory) throws IOException {
+        long[] expected;
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            expected = randomWorkload(journal, 10, 100);
+        }
+        // An OPEN record with type byte 0x7F and a checksum that does not match.
+        byte[] garbage = new byte[18];
+        garbage[0] = 1;
+        garbage[1] = 0x7F;
+        try (FileChannel channel = FileChannel.open(directory.resolve("accounts.journal"), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(garbage));
+        }
+        try (AccountJournal journal = AccountJournal.open(directory, 1_000_000)) {
+            check("corrupt record", expected, journal.store());
+        }
+    }
+
+    private static void replayTiming(Path directory, int accounts) throws Exception {
+        // Writers run on several threads so their records share fsyncs through group commit.
+        try (AccountJournal journal = AccountJournal.open(directory, Integer.MAX_VALUE)) {
+            inParallel(accounts, i -> journal.open(AccountType.of(i % 3), 1_000));
+            journal.snapshot();
+            inParallel(accounts, i -> journal.deposit(i, 500));
+        }
+        long start = System.nanoTime();
+        try (AccountJournal journal = AccountJournal.open(directory, Integer.MAX_VALUE)) {
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("Recovered %,d accounts (snapshot + %,d journal records) in %,d ms%n",
+                    journal.store().size(), accounts, elapsedMillis);
+        }
+    }
+
+    private static void inParallel(int count, IntConsumer action) throws InterruptedException {
+        int threads = 16;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            workers.add(new Thread(() -> {
+                for (int i = first; i < count; i += threads)
+                    action.accept(i);
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers)
+            worker.join();
+    }
+
+    private static long[] randomWorkload(AccountJournal journal, int accounts, int operations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < accounts; i++)
+            journal.open(AccountType.of(i % 3), random.nextInt(1_000));
+        for (int i = 0; i < operations; i++) {
+            int id = random.nextInt(accounts);
+            if (random.nextBoolean())
+                journal.deposit(id, 1 + random.nextInt(10_000));
+            else
+                journal.withdraw(id, 1 + random.nextInt(10_000));
+        }
+        return balances(journal.store());
+    }
+
+    private static int firstWithdrawable(AccountStore store) {
+        for (int id = 0; id < store.size(); id++)
+            if (store.type(id).withdrawable() && store.cents(id) > 0)
+                return id;
+        throw new IllegalStateException("No funded withdrawable account.");
+    }
+
+    private static long[] balances(AccountStore store) {
+        long[] balances = new long[store.size()];
+        for (int id = 0; id < balances.length; id++)
+            balances[id] = store.cents(id);
+        return balances;
+    }
+
+    private static void check(String scenario, long[] expected, AccountStore store) {
+        long[] actual = balances(store);
+        if (!Arrays.equals(expected, actual))
+            throw new IllegalStateException(scenario + ": recovered balances differ from the expected state.");
+        System.out.println(scenario + ": recovered " + actual.length + " accounts correctly.");
+    }
+
+    private static void truncate(Path file, int bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(directory)) {
+            walk.sorted(Comparator.reverseOrder()).forEach(paths::add);
+        }
+        for (Path path : paths)
+            Files.deleteIfExists(path);
+    }
+}
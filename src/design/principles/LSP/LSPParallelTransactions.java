@@ -0,0 +1,69 @@
+package design.principles.LSP;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Scaling run for Client's parallel transactions at 1/2/4/8 workers over AccountStore-backed accounts
+// (views do not print). Each run must end with exactly the balances of the sequential run. Every configuration,
+// the sequential baseline included, is warmed up once before the measured run.
+public class LSPParallelTransactions {
+    public static void main(String[] args) {
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        run(accounts, null, false); // warm-up
+        long[] expected = run(accounts, null, true);
+        for (int workers : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            try {
+                run(accounts, pool, false); // warm-up
+                long[] actual = run(accounts, pool, true);
+                if (!Arrays.equals(expected, actual))
+                    throw new IllegalStateException("Parallel run with " + workers
+                            + " workers diverged from sequential.");
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static long[] run(int accounts, ForkJoinPool pool, boolean print) {
+        AccountStore store = new AccountStore(accounts);
+        List<DepositOnlyAccount> fdAccounts = new ArrayList<>();
+        List<WithDrawableAccount> drawableAccounts = new ArrayList<>();
+        for (int i = 0; i < accounts; i++) {
+            AccountType type = AccountType.of(i % 3);
+            int id = store.open(type, 100 + i % 500);
+            if (type.withdrawable())
+                drawableAccounts.add(store.withDrawable(id));
+            else
+                fdAccounts.add(store.depositOnly(id));
+        }
+
+        Client client = new Client(fdAccounts, drawableAccounts);
+        if (pool == null) {
+            long start = System.nanoTime();
+            client.processWithDrawableTransactions();
+            client.processFDTransactions();
+            report(print, "sequential", new TransactionReport(accounts, System.nanoTime() - start));
+        } else {
+            ParallelTransactionProcessor processor = new ParallelTransactionProcessor(pool);
+            long elapsed = client.processWithDrawableTransactions(processor).elapsedNanos()
+                    + client.processFDTransactions(processor).elapsedNanos();
+            report(print, pool.getParallelism() + " workers", new TransactionReport(accounts, elapsed));
+        }
+
+        long[] balances = new long[store.size()];
+        for (int id = 0; id < balances.length; id++)
+            balances[id] = store.cents(id);
+        return balances;
+    }
+
+    private static void report(boolean print, String mode, TransactionReport report) {
+        if (!print)
+            return;
+        System.out.printf("%-12s %,d accounts in %,d ms (%,.0f accounts/s)%n", mode, report.accounts(),
+                report.elapsedNanos() / 1_000_000, report.accountsPerSecond());
+    }
+}
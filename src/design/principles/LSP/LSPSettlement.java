@@ -0,0 +1,69 @@
+package design.principles.LSP;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+// Scaling run for SettlementEngine at 1/2/4/8 workers over a mixed AccountStore. Every run must produce exactly
+// the balances and per-type totals of the single-worker run.
+// Checked first: an account whose credit would overflow is left unchanged and counted as rejected.
+public class LSPSettlement {
+    public static void main(String[] args) {
+        checkOverflowRejected();
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        RateTable rates = RateTable.daily(3.5, 1_500, 7.25);
+
+        long[] expectedBalances = null;
+        long[] expectedTotals = null;
+        for (int workers : new int[]{1, 2, 4, 8}) {
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            try {
+                SettlementEngine engine = new SettlementEngine(pool, 16_384);
+                engine.settle(open(accounts), rates); // warm-up
+                AccountStore store = open(accounts);
+                SettlementReport report = engine.settle(store, rates);
+                System.out.printf("%d workers: %,d accounts in %,d ms (%,.0f accounts/s); credited Rs %,.2f saving "
+                                + "interest, Rs %,.2f salary, Rs %,.2f FD interest%n", workers, report.accounts(),
+                        report.elapsedNanos() / 1_000_000, report.accountsPerSecond(),
+                        report.creditedCents(AccountType.SAVING) / 100.0,
+                        report.creditedCents(AccountType.SALARY) / 100.0,
+                        report.creditedCents(AccountType.FD) / 100.0);
+
+                long[] balances = new long[store.size()];
+                for (int id = 0; id < balances.length; id++)
+                    balances[id] = store.cents(id);
+                if (expectedBalances == null) {
+                    expectedBalances = balances;
+                    expectedTotals = report.creditedByType();
+                } else if (!Arrays.equals(expectedBalances, balances)
+                        || !Arrays.equals(expectedTotals, report.creditedByType())) {
+                    throw new IllegalStateException("Settlement with " + workers + " workers diverged.");
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static void checkOverflowRejected() {
+        AccountStore store = new AccountStore(2);
+        store.openCents(AccountType.SALARY, Long.MAX_VALUE - 10);
+        store.openCents(AccountType.SALARY, 1_000);
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            SettlementReport report = new SettlementEngine(pool, 1).settle(store, RateTable.daily(3.5, 1_500, 7.25));
+            if (report.rejected() != 1 || store.cents(0) != Long.MAX_VALUE - 10 || store.cents(1) != 151_000
+                    || report.creditedCents(AccountType.SALARY) != 150_000)
+                throw new IllegalStateException("Settlement near Long.MAX_VALUE: " + report.rejected()
+                        + " rejected, balances " + store.cents(0) + " and " + store.cents(1) + ".");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static AccountStore open(int accounts) {
+        AccountStore store = new AccountStore(accounts);
+        for (int i = 0; i < accounts; i++)
+            store.openCents(AccountType.of(i % 3), 10_000 + i % 5_000_000 * 37L);
+        return store;
+    }
+}
@@ -0,0 +1,120 @@
+package design.principles.LSP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Randomized stress run for TransferService: worker threads fire single and multi-leg transfers in random
+// directions, half of them touching a handful of hot accounts, some into FD accounts and a few (always rejected)
+// out of them. A deadlock shows
+// up as a worker missing its deadline; afterwards the total across all accounts must be exactly what was opened
+// and no balance may be negative.
+// Checked first: a transfer naming an unknown account, or whose credit would overflow, changes no balance.
+public class LSPTransfers {
+    public static void main(String[] args) throws Exception {
+        checkFailedTransfersChangeNothing();
+        int accounts = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int transfersPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200_000;
+        int hotAccounts = 8;
+
+        AccountStore store = new AccountStore(accounts);
+        long openedCents = 0;
+        for (int i = 0; i < accounts; i++) {
+            long cents = 100_000 + i % 100 * 10L;
+            store.openCents(AccountType.of(i % 3), cents);
+            openedCents += cents;
+        }
+        TransferService transfers = new TransferService(store, 1024);
+
+        DepositOnlyAccount fd = new AccountStore.DepositView(store, 2);
+        WithDrawableAccount saving = new AccountStore.WithDrawableView(store, 0);
+        long pairBefore = store.cents(0) + store.cents(2);
+        System.out.printf("Saving -> FD: %b; FD -> saving: %b; pair total unchanged: %b%n",
+                transfers.transfer(saving, fd, 1.00), transfers.transfer(2, 0, 100),
+                store.cents(0) + store.cents(2) == pairBefore);
+
+        LongAdder committed = new LongAdder();
+        LongAdder rejected = new LongAdder();
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> runs = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            runs.add(workers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    int legs = 1 + random.nextInt(4);
+                    List<TransferLeg> transfer = new ArrayList<>(legs);
+                    for (int l = 0; l < legs; l++)
+                        transfer.add(new TransferLeg(source(random, accounts, hotAccounts),
+                                pick(random, accounts, hotAccounts), 1 + random.nextInt(500)));
+                    if (transfers.transferAll(transfer))
+                        committed.increment();
+                    else
+                        rejected.increment();
+                }
+            }));
+        }
+        try {
+            for (Future<?> run : runs)
+                run.get(5, TimeUnit.MINUTES);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Transfers did not finish; possible deadlock.", e);
+        } finally {
+            workers.shutdownNow();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        long totalCents = 0;
+        for (int id = 0; id < store.size(); id++) {
+            long cents = store.cents(id);
+            if (cents < 0)
+                throw new IllegalStateException("Account " + id + " is overdrawn: " + cents);
+            totalCents += cents;
+        }
+        if (totalCents != openedCents)
+            throw new IllegalStateException("Total changed from " + openedCents + " to " + totalCents + " cents.");
+
+        long attempted = committed.sum() + rejected.sum();
+        System.out.printf("%,d transfers on %d threads in %,d ms (%,.0f transfers/s): %,d committed, %,d rejected; "
+                        + "total Rs %,.2f unchanged%n", attempted, threads, elapsed / 1_000_000,
+                attempted * 1e9 / elapsed, committed.sum(), rejected.sum(), totalCents / 100.0);
+    }
+
+    private static void checkFailedTransfersChangeNothing() {
+        AccountStore store = new AccountStore(3);
+        store.openCents(AccountType.SAVING, 1_000);
+        store.openCents(AccountType.SAVING, 1_000);
+        store.openCents(AccountType.SAVING, Long.MAX_VALUE - 10);
+        TransferService transfers = new TransferService(store, 4);
+        try {
+            transfers.transferAll(List.of(new TransferLeg(0, 1, 100), new TransferLeg(1, 99, 50)));
+            throw new IllegalStateException("A transfer to an unknown account was accepted.");
+        } catch (IndexOutOfBoundsException expected) {
+            // nothing applied
+        }
+        if (transfers.transferAll(List.of(new TransferLeg(0, 1, 100), new TransferLeg(1, 2, 50))))
+            throw new IllegalStateException("A transfer overflowing account 2 was accepted.");
+        if (store.cents(0) != 1_000 || store.cents(1) != 1_000 || store.cents(2) != Long.MAX_VALUE - 10)
+            throw new IllegalStateException("A failed transfer left balances " + store.cents(0) + ", "
+                    + store.cents(1) + ", " + store.cents(2) + ".");
+    }
+
+    // Half of all picks land on one of the first `hot` accounts.
+    private static int pick(ThreadLocalRandom random, int accounts, int hot) {
+        return random.nextBoolean() ? random.nextInt(hot) : random.nextInt(accounts);
+    }
+
+    // Mostly a saving or salary account; one pick in 50 is left as is, so it may be an FD account.
+    private static int source(ThreadLocalRandom random, int accounts, int hot) {
+        int id = pick(random, accounts, hot);
+        return id % 3 == 2 && random.nextInt(50) != 0 ? id - 1 : id;
+    }
+}
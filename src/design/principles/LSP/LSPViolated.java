@@ -1,24 +1,42 @@
 package design.principles.LSP;
 
+import design.principles.metrics.Metrics;
+import design.principles.metrics.OperationMetrics;
+
 import java.util.List;
 
 interface Account {
+    int DEPOSIT = 1;
+    int WITHDRAW = 1 << 1;
+
     void deposit(double amount);
     void withdraw(double amount);
+
+    // Operations this kind of account supports; a class-level fact, so callers may cache it per class.
+    default int capabilities() {
+        return DEPOSIT | WITHDRAW;
+    }
 }
 
+// Each account type records deposit/withdraw latency and rejections under "<type>.deposit" / "<type>.withdraw";
+// FixedDepositAccount records every withdrawal as rejected before it throws.
 class SavingsAccount implements Account {
-    private double balance;
+    private static final OperationMetrics DEPOSITS = Metrics.operation("SavingsAccount.deposit");
+    private static final OperationMetrics WITHDRAWALS = Metrics.operation("SavingsAccount.withdraw");
+
+    private final AtomicBalance balance;
 
     public SavingsAccount(double initialBalance) {
-        this.balance = initialBalance;
+        this.balance = new AtomicBalance(initialBalance);
     }
 
     @Override
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("Deposited: " + amount + ", New Balance: " + balance);
+        long start = DEPOSITS.start();
+        long newBalance = balance.deposit(AtomicBalance.toCents(amount));
+        DEPOSITS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Deposited: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
             System.out.println("Deposit amount must be positive.");
         }
@@ -26,9 +44,11 @@ class SavingsAccount implements Account {
 
     @Override
     public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrew: " + amount + ", New Balance: " + balance);
+        long start = WITHDRAWALS.start();
+        long newBalance = balance.withdraw(AtomicBalance.toCents(amount));
+        WITHDRAWALS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Withdrew: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
             System.out.println("Insufficient funds or invalid withdrawal amount.");
         }
@@ -36,17 +56,22 @@ class SavingsAccount implements Account {
 }
 
 class CurrentAccount implements Account {
-    private double balance;
+    private static final OperationMetrics DEPOSITS = Metrics.operation("CurrentAccount.deposit");
+    private static final OperationMetrics WITHDRAWALS = Metrics.operation("CurrentAccount.withdraw");
+
+    private final AtomicBalance balance;
 
     public CurrentAccount(double initialBalance) {
-        this.balance = initialBalance;
+        this.balance = new AtomicBalance(initialBalance);
     }
 
     @Override
     public void deposit(double amount) {
-        if (amount > 0) {
-            balance += amount;
-            System.out.println("Deposited: " + amount + ", New Balance: " + balance);
+        long start = DEPOSITS.start();
+        long newBalance = balance.deposit(AtomicBalance.toCents(amount));
+        DEPOSITS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Deposited: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
             System.out.println("Deposit amount must be positive.");
         }
@@ -54,9 +79,11 @@ class CurrentAccount implements Account {
 
     @Override
     public void withdraw(double amount) {
-        if (amount > 0 && amount <= balance) {
-            balance -= amount;
-            System.out.println("Withdrew: " + amount + ", New Balance: " + balance);
+        long start = WITHDRAWALS.start();
+        long newBalance = balance.withdraw(AtomicBalance.toCents(amount));
+        WITHDRAWALS.stop(start, newBalance == AtomicBalance.REJECTED);
+        if (newBalance != AtomicBalance.REJECTED) {
+            System.out.println("Withdrew: " + amount + ", New Balance: " + AtomicBalance.toAmount(newBalance));
         } else {
             System.out.println("Insufficient funds or invalid withdrawal amount.");
         }
@@ -64,9 +91,12 @@ class CurrentAccount implements Account {
 }
 
 class FixedDepositAccount implements Account {
+    private static final OperationMetrics DEPOSITS = Metrics.operation("FixedDepositAccount.deposit");
+    private static final OperationMetrics WITHDRAWALS = Metrics.operation("FixedDepositAccount.withdraw");
 
     @Override
     public void deposit(double amount) {
+        DEPOSITS.stop(DEPOSITS.start(), amount <= 0);
         if (amount > 0) {
             System.out.println("FD Account Deposited With: " + amount);
         } else {
@@ -77,8 +107,14 @@ class FixedDepositAccount implements Account {
     // Violation of LSP as this method is not supported in FixedDepositAccount
     @Override
     public void withdraw(double amount) {
+        WITHDRAWALS.stop(WITHDRAWALS.start(), true);
         throw new UnsupportedOperationException("Withdrawals are not allowed from Fixed Deposit Account.");
     }
+
+    @Override
+    public int capabilities() {
+        return DEPOSIT;
+    }
 }
 
 record BankClient(List<Account> accounts) {
@@ -108,5 +144,8 @@ public class LSPViolated {
         // Call to Bank Client to invoke transactions
         BankClient client = new BankClient(accounts);
         client.performTransactions();
+
+        System.out.println("\n---- Metrics ----");
+        Metrics.report();
     }
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package design.principles.LSP;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// For parallel runs elapsedNanos covers only the transactions themselves: partitioning happens before the clock starts.
+record TransactionReport(int accounts, long elapsedNanos) {
+    double accountsPerSecond() {
+        return elapsedNanos == 0 ? 0 : accounts * 1_000_000_000.0 / elapsedNanos;
+    }
+}
+
+// Runs per-account transactions on a ForkJoinPool. Accounts are split into partitions by hashCode(), so every
+// occurrence of the same account lands in one partition and is processed in list order; the final balances are
+// therefore the same as a sequential forEach over the list. hashCode() is identity for the account classes and
+// follows the account id for AccountStore's views, so two view instances of one account share a partition.
+final class ParallelTransactionProcessor {
+    private final ForkJoinPool pool;
+    private final int partitions;
+
+    ParallelTransactionProcessor(ForkJoinPool pool) {
+        this.pool = pool;
+        this.partitions = pool.getParallelism() * 4;
+    }
+
+    <A> TransactionReport process(List<A> accounts, Consumer<? super A> transactions) {
+        List<Callable<Void>> tasks = new ArrayList<>(partitions);
+        for (List<A> partition : partition(accounts)) {
+            tasks.add(() -> {
+                partition.forEach(transactions);
+                return null;
+            });
+        }
+        long start = System.nanoTime();
+        for (Future<Void> result : pool.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while processing transactions.", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Transaction processing failed.", e.getCause());
+            }
+        }
+        return new TransactionReport(accounts.size(), System.nanoTime() - start);
+    }
+
+    private <A> List<List<A>> partition(List<A> accounts) {
+        List<List<A>> result = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++)
+            result.add(new ArrayList<>(accounts.size() / partitions + 1));
+        // The account's hash picks the partition, so repeats of an account always follow its first occurrence.
+        for (A account : accounts) {
+            int hash = account.hashCode();
+            result.get(Math.floorMod(hash ^ (hash >>> 16), partitions)).add(account);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+package design.principles.LSP;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Per-type end-of-day rates, indexed by AccountType ordinal: interest in parts per billion of the balance and a
+// flat credit in cents (e.g. salary). Interest is computed in integer cents, rounded half up, so it never
+// depends on floating-point evaluation order. The arrays are copied in and out, so a table cannot change once built.
+record RateTable(long[] interestPpb, long[] creditCents) {
+    private static final long PPB = 1_000_000_000L;
+
+    RateTable {
+        int types = AccountType.values().length;
+        if (interestPpb.length != types || creditCents.length != types)
+            throw new IllegalArgumentException("Rate table needs one entry per account type.");
+        for (int i = 0; i < types; i++)
+            if (interestPpb[i] < 0 || interestPpb[i] > PPB || creditCents[i] < 0)
+                throw new IllegalArgumentException("Rates must be non-negative and interest at most 100%.");
+        interestPpb = interestPpb.clone();
+        creditCents = creditCents.clone();
+    }
+
+    // One day's rates from annual interest percentages (365-day year) and a daily salary credit.
+    static RateTable daily(double savingAnnualPercent, double salaryCredit, double fdAnnualPercent) {
+        long[] interest = new long[AccountType.values().length];
+        long[] credit = new long[interest.length];
+        interest[AccountType.SAVING.ordinal()] = Math.round(savingAnnualPercent / 100 / 365 * PPB);
+        interest[AccountType.FD.ordinal()] = Math.round(fdAnnualPercent / 100 / 365 * PPB);
+        credit[AccountType.SALARY.ordinal()] = AtomicBalance.toCents(salaryCredit);
+        return new RateTable(interest, credit);
+    }
+
+    @Override
+    public long[] interestPpb() {
+        return interestPpb.clone();
+    }
+
+    @Override
+    public long[] creditCents() {
+        return creditCents.clone();
+    }
+
+    // Cents to add to a balance of `cents` for an account of the given type ordinal. Throws ArithmeticException
+    // if the sum does not fit a long.
+    long credit(int type, long cents) {
+        long rate = interestPpb[type];
+        // Split the balance so balance * rate cannot overflow: (q * PPB + r) * rate / PPB = q * rate + r * rate / PPB.
+        long interest = cents / PPB * rate + (cents % PPB * rate + PPB / 2) / PPB;
+        return Math.addExact(interest, creditCents[type]);
+    }
+}
+
+// `rejected` counts accounts left unchanged because their credit would have overflowed the balance.
+record SettlementReport(int accounts, long[] creditedByType, long rejected, long elapsedNanos) {
+    SettlementReport {
+        creditedByType = creditedByType.clone();
+    }
+
+    @Override
+    public long[] creditedByType() {
+        return creditedByType.clone();
+    }
+
+    long creditedCents(AccountType type) {
+        return creditedByType[type.ordinal()];
+    }
+
+    double accountsPerSecond() {
+        return elapsedNanos == 0 ? 0 : accounts * 1_000_000_000.0 / elapsedNanos;
+    }
+}
+
+// End-of-day settlement over an AccountStore in one fork/join pass: the id range is split in halves down to
+// `leafSize` accounts and each leaf settles its slice of the store's balance column. Every account's new balance
+// depends only on its own balance and type, and the per-type totals are exact long sums, so balances and totals
+// are identical whatever the parallelism.
+final class SettlementEngine {
+    // A task's tally: credited cents per type ordinal, then the rejected-account count at index TYPES.
+    private static final int TYPES = AccountType.values().length;
+
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    SettlementEngine(ForkJoinPool pool, int leafSize) {
+        if (leafSize <= 0)
+            throw new IllegalArgumentException("leafSize must be positive.");
+        this.pool = pool;
+        this.leafSize = leafSize;
+    }
+
+    SettlementReport settle(AccountStore store, RateTable rates) {
+        long start = System.nanoTime();
+        long[] tally = pool.invoke(new Settle(store, rates, 0, store.size()));
+        return new SettlementReport(store.size(), Arrays.copyOf(tally, TYPES), tally[TYPES],
+                System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("serial") // ForkJoinTask is Serializable; these tasks never leave the pool
+    private final class Settle extends RecursiveTask<long[]> {
+        private final AccountStore store;
+        private final RateTable rates;
+        private final int from;
+        private final int to;
+
+        Settle(AccountStore store, RateTable rates, int from, int to) {
+            this.store = store;
+            this.rates = rates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from <= leafSize) {
+                long[] tally = new long[TYPES + 1];
+                tally[TYPES] = store.settle(from, to, rates, tally);
+                return tally;
+            }
+            int middle = (from + to) >>> 1;
+            Settle right = new Settle(store, rates, middle, to);
+            right.fork();
+            long[] credited = new Settle(store, rates, from, middle).compute();
+            long[] rightCredited = right.join();
+            for (int i = 0; i < credited.length; i++)
+                credited[i] += rightCredited[i];
+            return credited;
+        }
+    }
+}
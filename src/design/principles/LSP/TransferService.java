@@ -0,0 +1,110 @@
+package design.principles.LSP;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One leg of a transfer: `cents` from a withdrawable account to any account of the same store.
+record TransferLeg(int from, int to, long cents) {
+    TransferLeg {
+        if (cents <= 0)
+            throw new IllegalArgumentException("Transfer amount must be positive.");
+    }
+}
+
+// All-or-nothing transfers between accounts of one AccountStore. A transfer locks the stripes of every account it
+// touches in ascending stripe order, so two transfers can never wait on each other in a cycle; transfers over
+// disjoint stripes run in parallel. Every account id is checked before any lock is taken. Under the locks each leg
+// is a CAS debit (which checks funds and that the source may be withdrawn from) followed by a credit (which checks
+// for overflow); if either is rejected, or anything throws, what was already applied is undone in reverse order and
+// the transfer reports failure (or rethrows), leaving every balance as it was.
+// Other transfers never see a half-applied transfer. Single-account deposits and withdrawals made directly on
+// the store stay lock-free, so they can observe one in progress, and a direct withdrawal of credited funds can
+// make an undo leave the target below zero; route withdrawals through transfers when that matters.
+final class TransferService {
+    private final AccountStore store;
+    private final ReentrantLock[] stripes;
+
+    TransferService(AccountStore store, int stripeCount) {
+        if (Integer.bitCount(stripeCount) != 1)
+            throw new IllegalArgumentException("stripeCount must be a power of two.");
+        this.store = store;
+        this.stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++)
+            stripes[i] = new ReentrantLock();
+    }
+
+    boolean transfer(int from, int to, long cents) {
+        return transferAll(List.of(new TransferLeg(from, to, cents)));
+    }
+
+    // For the store's flyweight views, e.g. from a saving account into an FD account.
+    boolean transfer(WithDrawableAccount from, DepositOnlyAccount to, double amount) {
+        return transfer(id(from), id(to), AtomicBalance.toCents(amount));
+    }
+
+    // Applies every leg, in order, or none of them. A later leg may spend what an earlier one credited.
+    // Throws IndexOutOfBoundsException, before touching any balance, if a leg names an unknown account.
+    boolean transferAll(List<TransferLeg> legs) {
+        int[] locked = stripesOf(legs);
+        for (int stripe : locked)
+            stripes[stripe].lock();
+        try {
+            int applied = 0;
+            boolean debited = false; // leg `applied` is debited but not yet credited
+            try {
+                for (; applied < legs.size(); applied++) {
+                    TransferLeg leg = legs.get(applied);
+                    if (store.withdraw(leg.from(), leg.cents()) == AtomicBalance.REJECTED)
+                        break;
+                    debited = true;
+                    if (store.deposit(leg.to(), leg.cents()) == AtomicBalance.REJECTED)
+                        break;
+                    debited = false;
+                }
+            } finally {
+                if (applied < legs.size())
+                    undo(legs, applied, debited);
+            }
+            return applied == legs.size();
+        } finally {
+            for (int i = locked.length - 1; i >= 0; i--)
+                stripes[locked[i]].unlock();
+        }
+    }
+
+    // Reverses the first `applied` legs, and the debit of leg `applied` if `debited`, newest first.
+    private void undo(List<TransferLeg> legs, int applied, boolean debited) {
+        if (debited)
+            store.adjust(legs.get(applied).from(), legs.get(applied).cents());
+        for (int i = applied - 1; i >= 0; i--) {
+            TransferLeg leg = legs.get(i);
+            store.adjust(leg.to(), -leg.cents());
+            store.adjust(leg.from(), leg.cents());
+        }
+    }
+
+    // Distinct stripes of every account in the transfer, ascending: the global lock order. Checks every id.
+    private int[] stripesOf(List<TransferLeg> legs) {
+        int mask = stripes.length - 1;
+        int[] all = new int[legs.size() * 2];
+        for (int i = 0; i < legs.size(); i++) {
+            all[2 * i] = store.checkId(legs.get(i).from()) & mask;
+            all[2 * i + 1] = store.checkId(legs.get(i).to()) & mask;
+        }
+        Arrays.sort(all);
+        int distinct = 0;
+        for (int i = 0; i < all.length; i++)
+            if (i == 0 || all[i] != all[i - 1])
+                all[distinct++] = all[i];
+        return Arrays.copyOf(all, distinct);
+    }
+
+    private int id(DepositOnlyAccount account) {
+        if (account instanceof AccountStore.WithDrawableView view && view.store() == store)
+            return view.id();
+        if (account instanceof AccountStore.DepositView view && view.store() == store)
+            return view.id();
+        throw new IllegalArgumentException("Account is not a view of this service's AccountStore: " + account);
+    }
+}
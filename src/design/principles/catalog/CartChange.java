@@ -0,0 +1,7 @@
+package design.principles.catalog;
+
+// One product whose quantity in a cart changed since the cart was last persisted. `quantity` is the product's new
+// quantity (0 when REMOVED), `previousQuantity` what was persisted before.
+public record CartChange<P>(Kind kind, int productId, P product, int quantity, int previousQuantity) {
+    public enum Kind { INSERTED, UPDATED, REMOVED }
+}
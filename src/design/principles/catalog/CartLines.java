@@ -0,0 +1,229 @@
+package design.principles.catalog;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+
+// Cart lines as two primitive columns, a catalog product id and a quantity: 8 bytes per line however large the
+// product, with a running total in paise. Each product has at most one line: adding it again raises the quantity of
+// the line it got when first added, so units come out grouped by product in first-added order (A, B, A reads back as
+// A, A, B) and invoices print one product's units together.
+// unitList() is what a cart exposes to printers and sinks: one entry per unit, each the catalog's shared (immutable)
+// product instance, so nothing is materialized per line.
+// Changes are tracked for incremental persistence: every mutation bumps version() and logs the product it touched;
+// drainChanges() turns the log into per-product inserts, updates and removals against what was last persisted.
+// Not thread-safe.
+public final class CartLines<P> {
+    private final ProductCatalog<P> catalog;
+    private int[] productIds = new int[16];
+    private int[] quantities = new int[16];
+    private int size;
+    private int units;
+    private long totalInPaise;
+    // unitEnds[i] is the number of units in lines 0..i; rebuilt lazily, only needed once some quantity exceeds 1.
+    private int[] unitEnds;
+    // lineByProduct[id] is 1 + the line holding product `id`, or 0 if the cart has none; indexed by catalog id.
+    private int[] lineByProduct = new int[16];
+
+    private long version;
+    // Products touched since the last drain/checkpoint, each logged once, and the quantities last persisted,
+    // indexed by catalog id.
+    private int[] dirtyLog = new int[16];
+    private int dirtyCount;
+    private final BitSet dirty = new BitSet();
+    private int[] persisted = new int[16];
+
+    public CartLines(ProductCatalog<P> catalog) {
+        this.catalog = catalog;
+    }
+
+    public ProductCatalog<P> catalog() {
+        return catalog;
+    }
+
+    // Raises the quantity of the product's line, or appends a line if the cart has none yet. O(1) amortized.
+    public void add(int productId, int quantity) {
+        if (quantity <= 0)
+            throw new IllegalArgumentException("Quantity must be positive.");
+        long paise = catalog.priceInPaise(productId);
+        int newUnits = Math.addExact(units, quantity);
+        int line = lineOfProduct(productId);
+        if (line >= 0) {
+            quantities[line] += quantity; // cannot overflow: bounded by newUnits
+        } else {
+            if (size == productIds.length) {
+                productIds = Arrays.copyOf(productIds, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+            }
+            productIds[size] = productId;
+            quantities[size] = quantity;
+            lineByProduct = grow(lineByProduct, productId);
+            lineByProduct[productId] = ++size;
+        }
+        units = newUnits;
+        totalInPaise += paise * quantity;
+        unitEnds = null;
+        touched(productId);
+    }
+
+    // Removes one unit, counting across lines as unitList() does; a line whose quantity drops to 0 is removed.
+    public P removeUnit(int unit) {
+        Objects.checkIndex(unit, units);
+        return removeOne(lineOf(unit));
+    }
+
+    // Removes one unit of the product; false if the cart has none. O(1) while the line keeps a unit; removing its
+    // last unit closes the gap to keep line order, which is O(lines).
+    public boolean removeProduct(int productId) {
+        int line = lineOfProduct(productId);
+        if (line < 0)
+            return false;
+        removeOne(line);
+        return true;
+    }
+
+    public int lines() {
+        return size;
+    }
+
+    public int productId(int line) {
+        Objects.checkIndex(line, size);
+        return productIds[line];
+    }
+
+    public int quantity(int line) {
+        Objects.checkIndex(line, size);
+        return quantities[line];
+    }
+
+    // Units of the product in the cart, 0 if none.
+    public int quantityOf(int productId) {
+        int line = lineOfProduct(productId);
+        return line < 0 ? 0 : quantities[line];
+    }
+
+    public int units() {
+        return units;
+    }
+
+    public long totalInPaise() {
+        return totalInPaise;
+    }
+
+    // Incremented by every add and remove.
+    public long version() {
+        return version;
+    }
+
+    // Number of products changed since the last drain or checkpoint (an upper bound: a product added and
+    // removed again is logged but yields no change).
+    public int pendingChanges() {
+        return dirtyCount;
+    }
+
+    // Net changes since the last drain or checkpoint, in the order products were first touched; they then count
+    // as persisted. Costs one lookup per logged product, however many mutations happened.
+    public List<CartChange<P>> drainChanges() {
+        List<CartChange<P>> changes = new ArrayList<>(dirtyCount);
+        for (int i = 0; i < dirtyCount; i++) {
+            int productId = dirtyLog[i];
+            int now = quantityOf(productId);
+            int before = productId < persisted.length ? persisted[productId] : 0;
+            if (now == before)
+                continue;
+            CartChange.Kind kind = before == 0 ? CartChange.Kind.INSERTED
+                    : now == 0 ? CartChange.Kind.REMOVED : CartChange.Kind.UPDATED;
+            changes.add(new CartChange<>(kind, productId, catalog.product(productId), now, before));
+            persisted = grow(persisted, productId);
+            persisted[productId] = now;
+        }
+        clearLog();
+        return changes;
+    }
+
+    // Marks the whole cart as persisted, after a full save.
+    public void checkpoint() {
+        Arrays.fill(persisted, 0);
+        for (int line = 0; line < size; line++) {
+            persisted = grow(persisted, productIds[line]);
+            persisted[productIds[line]] = quantities[line];
+        }
+        clearLog();
+    }
+
+    // Read-only view with one element per unit, in line order.
+    public List<P> unitList() {
+        return new AbstractList<>() {
+            @Override
+            public P get(int index) {
+                Objects.checkIndex(index, units);
+                return catalog.product(productIds[lineOf(index)]);
+            }
+
+            @Override
+            public int size() {
+                return units;
+            }
+        };
+    }
+
+    private P removeOne(int line) {
+        int productId = productIds[line];
+        P removed = catalog.product(productId);
+        totalInPaise -= catalog.priceInPaise(productId);
+        units--;
+        if (--quantities[line] == 0) {
+            System.arraycopy(productIds, line + 1, productIds, line, size - line - 1);
+            System.arraycopy(quantities, line + 1, quantities, line, size - line - 1);
+            size--;
+            lineByProduct[productId] = 0;
+            for (int moved = line; moved < size; moved++)
+                lineByProduct[productIds[moved]] = moved + 1;
+        }
+        unitEnds = null;
+        touched(productId);
+        return removed;
+    }
+
+    private void touched(int productId) {
+        version++;
+        if (dirty.get(productId))
+            return;
+        dirty.set(productId);
+        if (dirtyCount == dirtyLog.length)
+            dirtyLog = Arrays.copyOf(dirtyLog, dirtyCount * 2);
+        dirtyLog[dirtyCount++] = productId;
+    }
+
+    private void clearLog() {
+        dirty.clear();
+        dirtyCount = 0;
+    }
+
+    private int lineOfProduct(int productId) {
+        return productId >= 0 && productId < lineByProduct.length ? lineByProduct[productId] - 1 : -1;
+    }
+
+    // `array`, grown (doubling) until `index` fits.
+    private static int[] grow(int[] array, int index) {
+        if (index < array.length)
+            return array;
+        return Arrays.copyOf(array, Math.max(index + 1, array.length * 2));
+    }
+
+    private int lineOf(int unit) {
+        if (units == size)
+            return unit; // every line holds one unit
+        if (unitEnds == null) {
+            unitEnds = new int[size];
+            int end = 0;
+            for (int i = 0; i < size; i++)
+                unitEnds[i] = end += quantities[i];
+        }
+        int line = Arrays.binarySearch(unitEnds, 0, size, unit + 1);
+        return line >= 0 ? line : -line - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package design.principles.catalog;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+// Dictionary of distinct products: each (name, price) pair gets a dense int id and one canonical product object,
+// the first instance a caller interned or else one created through `factory`, with the price exactly as first given,
+// so carts can store ids and hand out shared instances instead of copies. Products must therefore be immutable.
+// priceInPaise() is that price rounded to whole paise, which carts add up for totals.
+// Names are interned here too, so equal names across products share one String.
+// Not thread-safe; share a catalog between carts that are filled from one thread.
+public final class ProductCatalog<P> {
+    private final BiFunction<String, Double, P> factory;
+    private final Map<Key, Integer> ids = new HashMap<>();
+    private final Map<String, String> names = new HashMap<>();
+    private String[] productNames = new String[16];
+    private long[] pricesInPaise = new long[16];
+    private Object[] products = new Object[16];
+    private int size;
+
+    public ProductCatalog(BiFunction<String, Double, P> factory) {
+        this.factory = factory;
+    }
+
+    // Id of the product with this name and price, adding it on first sight.
+    public int intern(String name, double price) {
+        return intern(null, name, price);
+    }
+
+    // Same, but on first sight `product` (whose name and price these are) becomes the canonical instance, so a
+    // cart hands back the very object its first caller added.
+    public int intern(P product, String name, double price) {
+        Integer existing = ids.get(new Key(name, price));
+        if (existing != null)
+            return existing;
+        if (size == productNames.length) {
+            productNames = Arrays.copyOf(productNames, size * 2);
+            pricesInPaise = Arrays.copyOf(pricesInPaise, size * 2);
+            products = Arrays.copyOf(products, size * 2);
+        }
+        String interned = names.computeIfAbsent(name, n -> n);
+        productNames[size] = interned;
+        pricesInPaise[size] = toPaise(price);
+        products[size] = product != null ? product : factory.apply(interned, price);
+        ids.put(new Key(interned, price), size);
+        return size++;
+    }
+
+    // Id of the product with this name and price, or -1 if the catalog has never seen it.
+    public int idOf(String name, double price) {
+        Integer id = ids.get(new Key(name, price));
+        return id == null ? -1 : id;
+    }
+
+    @SuppressWarnings("unchecked")
+    public P product(int id) {
+        return (P) products[checkId(id)];
+    }
+
+    public String name(int id) {
+        return productNames[checkId(id)];
+    }
+
+    public long priceInPaise(int id) {
+        return pricesInPaise[checkId(id)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public static long toPaise(double price) {
+        return Math.round(price * 100);
+    }
+
+    private int checkId(int id) {
+        if (id < 0 || id >= size)
+            throw new IndexOutOfBoundsException("No product with id " + id);
+        return id;
+    }
+
+    private record Key(String name, double price) {
+    }
+}
@@ -0,0 +1,108 @@
+package design.principles.invoice;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+// Streams invoice lines into one reused buffer and drains it to the sink whenever it fills up,
+// so memory stays constant however many lines the cart has. Prices are appended as primitives (no boxing).
+// Lines end with System.lineSeparator(), so the text is exactly what the carts' println-based printInvoice emits.
+// Shared by the srp and ocp ShoppingCartPrinters. Use in try-with-resources: close() writes out the rest and, for
+// gzip output, the trailer, and releases the native deflater; the sink itself is never closed.
+public final class InvoiceWriter implements AutoCloseable {
+    private static final int BUFFER_CHARS = 8192;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Appendable appendable;
+    private final WritableByteChannel channel;
+    private final GZIPOutputStream gzip;
+    private final StringBuilder buffer = new StringBuilder(BUFFER_CHARS + 256);
+    private final ByteBuffer bytes;
+    private final CharsetEncoder encoder;
+
+    private InvoiceWriter(Appendable appendable, WritableByteChannel channel, GZIPOutputStream gzip) {
+        this.appendable = appendable;
+        this.channel = channel;
+        this.gzip = gzip;
+        this.bytes = channel == null ? null : ByteBuffer.allocate(BUFFER_CHARS * 3);
+        this.encoder = channel == null ? null : StandardCharsets.UTF_8.newEncoder();
+    }
+
+    public static InvoiceWriter to(Appendable out) {
+        return new InvoiceWriter(out, null, null);
+    }
+
+    // UTF-8 output to a channel, optionally gzip-compressed; the channel itself is left open.
+    public static InvoiceWriter to(WritableByteChannel out, boolean compress) throws IOException {
+        if (!compress)
+            return new InvoiceWriter(null, out, null);
+        OutputStream unclosable = new OutputStream() {
+            private final OutputStream target = Channels.newOutputStream(out);
+
+            @Override
+            public void write(int b) throws IOException {
+                target.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target.write(b, off, len);
+            }
+        };
+        GZIPOutputStream gzip = new GZIPOutputStream(unclosable, BUFFER_CHARS);
+        return new InvoiceWriter(null, Channels.newChannel(gzip), gzip);
+    }
+
+    public InvoiceWriter header(String text) throws IOException {
+        buffer.append(text).append(LINE_SEPARATOR);
+        return drainIfFull();
+    }
+
+    public InvoiceWriter line(String name, double price) throws IOException {
+        buffer.append(name).append(" - Rs ").append(price).append(LINE_SEPARATOR);
+        return drainIfFull();
+    }
+
+    // Writes out whatever is buffered and, for gzip output, the gzip trailer, then frees the deflater.
+    @Override
+    public void close() throws IOException {
+        if (gzip == null) {
+            drain();
+            return;
+        }
+        try (gzip) {
+            drain();
+        }
+    }
+
+    private InvoiceWriter drainIfFull() throws IOException {
+        if (buffer.length() >= BUFFER_CHARS)
+            drain();
+        return this;
+    }
+
+    private void drain() throws IOException {
+        if (appendable != null) {
+            appendable.append(buffer);
+        } else {
+            CharBuffer chars = CharBuffer.wrap(buffer);
+            while (true) {
+                boolean overflow = encoder.encode(chars, bytes, true).isOverflow();
+                bytes.flip();
+                while (bytes.hasRemaining())
+                    channel.write(bytes);
+                bytes.clear();
+                if (!overflow)
+                    break;
+            }
+            encoder.reset();
+        }
+        buffer.setLength(0);
+    }
+}
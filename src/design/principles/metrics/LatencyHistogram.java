@@ -0,0 +1,89 @@
+package design.principles.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram: values below 32 ns get a
+// bucket each, and every power-of-two range above that is split into 32 equal buckets, so any recorded value is
+// reported within ~3% of its true size. Recording is one atomic increment (plus a max update when a new maximum is
+// seen) and never allocates; count and mean are derived from the buckets on read instead of kept in extra counters.
+// Reads are not a consistent snapshot while writers are running, which is fine for monitoring.
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.getAndIncrement(index(value));
+        if (value > maxNanos.get())
+            maxNanos.accumulateAndGet(value, Math::max);
+    }
+
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += counts.get(i);
+        return count;
+    }
+
+    // Mean of the bucket midpoints, so within the same ~3% as the buckets themselves.
+    public double meanNanos() {
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long n = counts.get(i);
+            if (n != 0) {
+                count += n;
+                total += n * ((lowestValue(i) + highestValue(i)) / 2.0);
+            }
+        }
+        return count == 0 ? 0 : total / count;
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    // Upper bound of the bucket holding the value `percentile` percent of recordings fall at or below; 0 when empty.
+    public long percentileNanos(double percentile) {
+        long total = count();
+        if (total == 0)
+            return 0;
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank)
+                return Math.min(highestValue(i), maxNanos());
+        }
+        return maxNanos();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count %,d, mean %,.0f ns, p50 %,d ns, p99 %,d ns, p99.9 %,d ns, max %,d ns",
+                count(), meanNanos(), percentileNanos(50), percentileNanos(99), percentileNanos(99.9), maxNanos());
+    }
+
+    private static int index(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude < SUB_BUCKET_BITS)
+            return (int) value;
+        int shift = magnitude - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    private static long lowestValue(int index) {
+        int shift = index / SUB_BUCKETS - 1;
+        return shift < 0 ? index : (long) (index % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    private static long highestValue(int index) {
+        int shift = index / SUB_BUCKETS - 1;
+        return shift < 0 ? index : lowestValue(index) + (1L << shift) - 1;
+    }
+}
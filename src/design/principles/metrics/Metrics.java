@@ -0,0 +1,55 @@
+package design.principles.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Process-wide registry of OperationMetrics, keyed by name ("DataBase.SaveToSqlDB.save", "SavingAccount.withdraw").
+// Look an operation up once and keep the reference; the lookup itself is not meant for the hot path.
+public final class Metrics {
+    // Read once at class load, so a disabled build folds every start()/stop() away.
+    static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("design.principles.metrics", "true"));
+
+    // Time one call in SAMPLE_EVERY (rounded up to a power of two; 1 times every call). Every call is still counted.
+    static final int SAMPLE_EVERY = sampleEvery(Integer.getInteger("design.principles.metrics.sampleEvery", 16));
+    static final int SAMPLE_MASK = SAMPLE_EVERY - 1;
+
+    private static final ConcurrentMap<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static OperationMetrics operation(String name) {
+        return OPERATIONS.computeIfAbsent(name, OperationMetrics::new);
+    }
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    public static int sampleEvery() {
+        return SAMPLE_EVERY;
+    }
+
+    // Every operation that has recorded at least once, sorted by name.
+    public static List<OperationMetrics> snapshot() {
+        List<OperationMetrics> operations = new ArrayList<>();
+        for (OperationMetrics operation : OPERATIONS.values())
+            if (operation.count() > 0)
+                operations.add(operation);
+        operations.sort(Comparator.comparing(OperationMetrics::name));
+        return operations;
+    }
+
+    public static void report() {
+        snapshot().forEach(System.out::println);
+    }
+
+    private static int sampleEvery(int requested) {
+        if (requested < 1 || requested > 1 << 30)
+            throw new IllegalArgumentException("design.principles.metrics.sampleEvery must be in [1, 2^30].");
+        return requested == 1 ? 1 : Integer.highestOneBit(requested - 1) << 1;
+    }
+}
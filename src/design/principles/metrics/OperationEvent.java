@@ -0,0 +1,31 @@
+package design.principles.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// JFR view of one instrumented operation, e.g. a save on a DataBase backend or a withdrawal on a SavingAccount.
+// Off by default, since one event per operation is a lot: enable design.principles.Operation in the .jfc settings
+// of a recording to get them. While it is off, creating and checking the event is optimized away.
+@Name("design.principles.Operation")
+@Label("Operation")
+@Category("Design Principles")
+@Description("An instrumented save, lookup, deposit or withdrawal")
+@Enabled(false)
+@StackTrace(false)
+final class OperationEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    @Label("Rejected")
+    boolean rejected;
+}
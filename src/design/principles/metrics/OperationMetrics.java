@@ -0,0 +1,86 @@
+package design.principles.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency and outcome counts for one named operation. Callers bracket the work:
+//     long start = metrics.start();
+//     ... do the operation ...
+//     metrics.stop(start, rejected);
+// "Rejected" means the operation had no effect because it was refused or failed: a withdrawal beyond the balance,
+// a deposit that would overflow, a save that threw. A lookup that finds nothing is not rejected.
+// Every call is counted, but only about one in Metrics.SAMPLE_EVERY is timed: the two clock reads cost more than the
+// rest of the bookkeeping together, and a uniform sample gives the same percentiles. The JFR event is emitted for
+// the timed calls. Both calls are no-ops when metrics are disabled (-Ddesign.principles.metrics=false).
+public final class OperationMetrics {
+    // What start() returns for a call that is counted but not timed; System.nanoTime() will not return it in practice.
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    OperationMetrics(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long start() {
+        if (!Metrics.ENABLED || (ThreadLocalRandom.current().nextInt() & Metrics.SAMPLE_MASK) != 0)
+            return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    public void stop(long start) {
+        stop(start, false);
+    }
+
+    public void stop(long start, boolean rejected) {
+        if (!Metrics.ENABLED)
+            return;
+        calls.increment();
+        if (rejected)
+            this.rejected.increment();
+        if (start == NOT_TIMED)
+            return;
+        long nanos = System.nanoTime() - start;
+        latency.record(nanos);
+        OperationEvent event = new OperationEvent();
+        if (event.isEnabled()) {
+            event.operation = name;
+            event.latency = nanos;
+            event.rejected = rejected;
+            event.commit();
+        }
+    }
+
+    public long count() {
+        return calls.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    // Latency of the timed calls only; its count() is the number of samples, not of calls.
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder(String.format("%s: count %,d", name, count()));
+        long timed = latency.count();
+        if (timed > 0)
+            text.append(String.format(", timed %,d, mean %,.0f ns, p50 %,d ns, p99 %,d ns, p99.9 %,d ns, max %,d ns",
+                    timed, latency.meanNanos(), latency.percentileNanos(50), latency.percentileNanos(99),
+                    latency.percentileNanos(99.9), latency.maxNanos()));
+        if (rejected() > 0)
+            text.append(String.format(", rejected %,d", rejected()));
+        return text.toString();
+    }
+}
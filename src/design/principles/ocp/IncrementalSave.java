@@ -0,0 +1,44 @@
+package design.principles.ocp;
+
+import design.principles.catalog.CartChange;
+import design.principles.catalog.CartLines;
+
+import java.util.List;
+
+// Saves one cart to several sinks, handing them only the products that changed since the previous save.
+// The first save, and every `checkpointEvery`-th after it, is a full save() to every sink instead: a checkpoint
+// that bounds how far a sink can drift if it ever dropped a delta. The cart's change log is drained once per save
+// and the same delta goes to every sink.
+final class IncrementalSave {
+    private final ShoppingCart cart;
+    private final List<SaveProduct> sinks;
+    private final int checkpointEvery;
+    private int savesSinceCheckpoint = -1;
+
+    IncrementalSave(ShoppingCart cart, List<SaveProduct> sinks, int checkpointEvery) {
+        if (checkpointEvery <= 0)
+            throw new IllegalArgumentException("checkpointEvery must be positive.");
+        this.cart = cart;
+        this.sinks = List.copyOf(sinks);
+        this.checkpointEvery = checkpointEvery;
+    }
+
+    // Returns the number of product changes handed to each sink, or the cart's unit count for a checkpoint.
+    int save() {
+        if (savesSinceCheckpoint < 0 || savesSinceCheckpoint + 1 >= checkpointEvery)
+            return checkpoint();
+        savesSinceCheckpoint++;
+        List<CartChange<Product>> changes = cart.lines().drainChanges();
+        if (!changes.isEmpty())
+            sinks.forEach(sink -> sink.saveChanges(changes));
+        return changes.size();
+    }
+
+    int checkpoint() {
+        CartLines<Product> lines = cart.lines();
+        sinks.forEach(SaveProduct::save);
+        lines.checkpoint();
+        savesSinceCheckpoint = 0;
+        return lines.units();
+    }
+}
@@ -0,0 +1,61 @@
+package design.principles.ocp;
+
+import design.principles.catalog.CartChange;
+import design.principles.metrics.Metrics;
+import design.principles.metrics.OperationMetrics;
+
+import java.util.List;
+
+// Decorator over any SaveProduct sink that records latency under "SaveProduct.<sink>.save" (whole cart),
+// "SaveProduct.<sink>.saveLine" (one product) and "SaveProduct.<sink>.saveChanges" (a delta).
+// A save that throws is recorded as rejected.
+final class InstrumentedSaveProduct implements SaveProduct {
+    private final SaveProduct delegate;
+    private final OperationMetrics saves;
+    private final OperationMetrics lines;
+    private final OperationMetrics deltas;
+
+    InstrumentedSaveProduct(SaveProduct delegate) {
+        String sink = delegate.getClass().getSimpleName();
+        this.delegate = delegate;
+        this.saves = Metrics.operation("SaveProduct." + sink + ".save");
+        this.lines = Metrics.operation("SaveProduct." + sink + ".saveLine");
+        this.deltas = Metrics.operation("SaveProduct." + sink + ".saveChanges");
+    }
+
+    @Override
+    public void save() {
+        long start = saves.start();
+        boolean failed = true;
+        try {
+            delegate.save();
+            failed = false;
+        } finally {
+            saves.stop(start, failed);
+        }
+    }
+
+    @Override
+    public void save(Product product) {
+        long start = lines.start();
+        boolean failed = true;
+        try {
+            delegate.save(product);
+            failed = false;
+        } finally {
+            lines.stop(start, failed);
+        }
+    }
+
+    @Override
+    public void saveChanges(List<CartChange<Product>> changes) {
+        long start = deltas.start();
+        boolean failed = true;
+        try {
+            delegate.saveChanges(changes);
+            failed = false;
+        } finally {
+            deltas.stop(start, failed);
+        }
+    }
+}
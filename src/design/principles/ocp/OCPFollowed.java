@@ -1,15 +1,55 @@
 package design.principles.ocp;
 
+import design.principles.DIP.followed.LogStore;
+import design.principles.catalog.CartChange;
+import design.principles.catalog.CartLines;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 interface SaveProduct {
     void save();
+
+    // Persists a single line; lets a pipeline read the cart once and hand each line to every sink.
+    void save(Product product);
+
+    // Brackets one run of save(Product) calls for a cart, as SaveProductPipeline and ProductPublisher make them.
+    // Sinks that keep a file or connection open for the run and commit once at end() override these.
+    default void begin() {
+    }
+
+    default void end() {
+    }
+
+    // Applies only what changed since the cart was last persisted (see IncrementalSave).
+    // Sinks that cannot apply a delta fall back to saving the whole cart.
+    default void saveChanges(List<CartChange<Product>> changes) {
+        save();
+    }
 }
 
 // Follows OCP as we can add new storage classes without modifying existing ones.
 record SaveProductToSqlDB(ShoppingCart cart) implements SaveProduct {
     @Override
     public void save() {
-        cart.getProducts().forEach(p ->
-                System.out.println("Product : " + p.name + " with price: " + p.price + " saved to SQL database."));
+        cart.getProducts().forEach(this::save);
+    }
+
+    @Override
+    public void save(Product p) {
+        System.out.println("Product : " + p.name + " with price: " + p.price + " saved to SQL database.");
+    }
+
+    @Override
+    public void saveChanges(List<CartChange<Product>> changes) {
+        for (CartChange<Product> change : changes)
+            System.out.println("Product : " + change.product().name + " quantity " + change.quantity() + " "
+                    + change.kind().name().toLowerCase() + " in SQL database.");
     }
 }
 
@@ -17,17 +57,172 @@ record SaveProductToSqlDB(ShoppingCart cart) implements SaveProduct {
 record SaveProductToNoSqlDB(ShoppingCart cart) implements SaveProduct {
     @Override
     public void save() {
-        cart.getProducts().forEach(p ->
-                System.out.println("Product : " + p.name + " with price: " + p.price + " saved to NoSQL database."));
+        cart.getProducts().forEach(this::save);
+    }
+
+    @Override
+    public void save(Product p) {
+        System.out.println("Product : " + p.name + " with price: " + p.price + " saved to NoSQL database.");
+    }
+
+    @Override
+    public void saveChanges(List<CartChange<Product>> changes) {
+        for (CartChange<Product> change : changes)
+            System.out.println("Product : " + change.product().name + " quantity " + change.quantity() + " "
+                    + change.kind().name().toLowerCase() + " in NoSQL database.");
     }
 }
 
 // Follows OCP as we can add new storage classes without modifying existing ones.
-record SaveProductToFile(ShoppingCart cart) implements SaveProduct {
+// Persists to a binary ProductFile at `path`. A run (begin() ... end()) rewrites the file with exactly the products
+// handed to it, through one writer that is forced once at end(); save() is such a run over the whole cart.
+// A save(Product) outside a run appends that one product, paying a file open and an fsync for it.
+// Not thread-safe: a run is driven by one thread at a time, as the pipeline and the publisher do per sink.
+final class SaveProductToFile implements SaveProduct {
+    private final ShoppingCart cart;
+    private final Path path;
+    private ProductFile.Writer run;
+    private int runProducts;
+
+    SaveProductToFile(ShoppingCart cart, Path path) {
+        this.cart = cart;
+        this.path = path;
+    }
+
+    ShoppingCart cart() {
+        return cart;
+    }
+
+    Path path() {
+        return path;
+    }
+
     @Override
     public void save() {
-        cart.getProducts().forEach(p ->
-                System.out.println("Product : " + p.name + " with price: " + p.price + " saved to file."));
+        begin();
+        try {
+            cart.getProducts().forEach(this::save);
+        } catch (RuntimeException e) {
+            abort(e);
+            throw e;
+        }
+        end();
+    }
+
+    @Override
+    public void begin() {
+        if (run != null)
+            throw new IllegalStateException("A save run is already in progress for " + path);
+        try {
+            run = ProductFile.Writer.create(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        runProducts = 0;
+    }
+
+    @Override
+    public void save(Product p) {
+        if (run != null) {
+            run.write(p);
+            runProducts++;
+            return;
+        }
+        try (ProductFile.Writer writer = ProductFile.Writer.append(path)) {
+            writer.write(p);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println("Product : " + p.name + " with price: " + p.price + " saved to file.");
+    }
+
+    @Override
+    public void end() {
+        if (run == null)
+            throw new IllegalStateException("No save run in progress for " + path);
+        ProductFile.Writer writer = run;
+        run = null;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(runProducts + " products saved to file " + path + ".");
+    }
+
+    // The file is a list of units, so growth is appended in place; anything that shrinks the cart rewrites it.
+    @Override
+    public void saveChanges(List<CartChange<Product>> changes) {
+        if (changes.stream().anyMatch(change -> change.quantity() < change.previousQuantity())) {
+            save();
+            return;
+        }
+        int appended = 0;
+        try (ProductFile.Writer writer = ProductFile.Writer.append(path)) {
+            for (CartChange<Product> change : changes)
+                for (int i = change.previousQuantity(); i < change.quantity(); i++, appended++)
+                    writer.write(change.product());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        System.out.println(appended + " products appended to file " + path + ".");
+    }
+
+    private void abort(RuntimeException failure) {
+        ProductFile.Writer writer = run;
+        run = null;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            failure.addSuppressed(e);
+        }
+    }
+}
+
+// Follows OCP as we can add new storage classes without modifying existing ones.
+// One record per distinct product in an embedded LogStore, keyed "<catalog id>/<name>": the cart's catalog id tells
+// apart products that share a name but not a price, so neither overwrites or deletes the other. Values are the
+// price in paise.
+record SaveProductToLogStore(ShoppingCart cart, LogStore store) implements SaveProduct {
+    @Override
+    public void save() {
+        CartLines<Product> lines = cart.lines();
+        List<String> keys = new ArrayList<>(lines.lines());
+        List<byte[]> prices = new ArrayList<>(lines.lines());
+        for (int line = 0; line < lines.lines(); line++) {
+            int id = lines.productId(line);
+            Product p = lines.catalog().product(id);
+            keys.add(key(id, p));
+            prices.add(price(p));
+        }
+        store.putAll(keys, prices);
+        System.out.println(keys.size() + " products saved to local log store.");
+    }
+
+    @Override
+    public void save(Product p) {
+        store.put(key(cart.lines().catalog().intern(p, p.name, p.price), p), price(p));
+        System.out.println("Product : " + p.name + " with price: " + p.price + " saved to local log store.");
+    }
+
+    @Override
+    public void saveChanges(List<CartChange<Product>> changes) {
+        for (CartChange<Product> change : changes) {
+            String key = key(change.productId(), change.product());
+            if (change.kind() == CartChange.Kind.REMOVED)
+                store.delete(key);
+            else
+                store.put(key, price(change.product()));
+        }
+        System.out.println(changes.size() + " product changes saved to local log store.");
+    }
+
+    static String key(int productId, Product p) {
+        return productId + "/" + p.name;
+    }
+
+    private static byte[] price(Product p) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(ProductFile.toPaise(p.price)).array();
     }
 }
 
@@ -55,7 +250,26 @@ public class OCPFollowed {
         System.out.println();
 
         // Save to File
-        SaveProductToFile saveToFile = new SaveProductToFile(cart);
-        saveToFile.save();
+        Path productFile = Path.of(System.getProperty("java.io.tmpdir"), "products.bin");
+        try {
+            SaveProductToFile saveToFile = new SaveProductToFile(cart, productFile);
+            saveToFile.save();
+
+            System.out.println("\n--- Saving Products Through One Pipeline ---");
+            // Reads the cart once and feeds all sinks in parallel; the file is rewritten once, not appended to.
+            SaveProductPipeline pipeline = new SaveProductPipeline(List.of(saveToSql, saveToNoSql, saveToFile), 1024);
+            pipeline.save(cart).forEach(System.out::println);
+            try (ProductFile.Reader reader = new ProductFile.Reader(productFile)) {
+                System.out.println(productFile + " holds " + reader.count() + " products.");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(productFile);
+            } catch (IOException e) {
+                System.out.println("Could not delete " + productFile + ": " + e.getMessage());
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package design.principles.ocp;
+
+import design.principles.DIP.followed.LogStore;
+import design.principles.catalog.CartChange;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+// A large cart saved after every small edit, as while a shopper browses: records written by full saves against
+// IncrementalSave (deltas plus a full checkpoint every 100 saves), counted by a sink that only tallies.
+// Checked first: in a LogStore sink, removing a product leaves the record of another product with the same name.
+public class OCPIncrementalSave {
+    public static void main(String[] args) throws IOException {
+        checkSameNameProductsKeptApart();
+        int items = 10_000;
+        int saves = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+
+        CountingSink full = new CountingSink();
+        CountingSink incremental = new CountingSink();
+        ShoppingCart fullCart = cart(items);
+        ShoppingCart incrementalCart = cart(items);
+        IncrementalSave incrementalSave = new IncrementalSave(incrementalCart, List.of(incremental), 100);
+        full.cart = fullCart;
+        incremental.cart = incrementalCart;
+
+        Random random = new Random(42);
+        for (int i = 0; i < saves; i++) {
+            Product product = new Product("Product-" + random.nextInt(items * 2), 10 + i % 50);
+            fullCart.addProduct(product);
+            incrementalCart.addProduct(product);
+            full.save();
+            incrementalSave.save();
+        }
+        System.out.printf("%,d saves of a %,d-unit cart: full saves wrote %,d records, incremental %,d "
+                        + "(%,.0fx fewer)%n", saves, fullCart.getProducts().size(), full.written, incremental.written,
+                (double) full.written / incremental.written);
+    }
+
+    private static void checkSameNameProductsKeptApart() throws IOException {
+        Path directory = Files.createTempDirectory("incremental-save");
+        try (LogStore store = LogStore.open(directory, 1 << 20, Duration.ofHours(1))) {
+            ShoppingCart cart = new ShoppingCart();
+            Product mouse = new Product("Mouse", 2000);
+            Product cheapMouse = new Product("Mouse", 1500);
+            cart.addProduct(mouse);
+            cart.addProduct(cheapMouse);
+            IncrementalSave save = new IncrementalSave(cart, List.of(new SaveProductToLogStore(cart, store)), 100);
+            save.save();
+            cart.removeProduct(cheapMouse);
+            save.save();
+            int mouseId = cart.lines().catalog().idOf("Mouse", 2000);
+            int cheapId = cart.lines().catalog().idOf("Mouse", 1500);
+            if (store.size() != 1 || store.get(SaveProductToLogStore.key(mouseId, mouse)) == null
+                    || store.get(SaveProductToLogStore.key(cheapId, cheapMouse)) != null)
+                throw new IllegalStateException("Products named Mouse were not kept apart in the log store.");
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList())
+                    Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static ShoppingCart cart(int items) {
+        ShoppingCart cart = new ShoppingCart();
+        for (int i = 0; i < items; i++)
+            cart.addProduct(new Product("Product-" + i, 10 + i % 50), 1 + i % 3);
+        return cart;
+    }
+
+    private static final class CountingSink implements SaveProduct {
+        ShoppingCart cart;
+        long written;
+
+        @Override
+        public void save() {
+            written += cart.lines().lines();
+        }
+
+        @Override
+        public void save(Product product) {
+            written++;
+        }
+
+        @Override
+        public void saveChanges(List<CartChange<Product>> changes) {
+            written += changes.size();
+        }
+    }
+}
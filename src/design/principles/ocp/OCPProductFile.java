@@ -0,0 +1,89 @@
+package design.principles.ocp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Round trip and throughput of ProductFile: a cart saved through SaveProductToFile must read back line for line,
+// pipeline and publisher runs must leave exactly the cart in it, then a large file is dumped and reloaded with timings.
+public class OCPProductFile {
+    public static void main(String[] args) throws IOException {
+        int products = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        Path path = Files.createTempFile("products", ".bin");
+        try {
+            roundTrip(path);
+            throughput(path, products);
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static void roundTrip(Path path) throws IOException {
+        ShoppingCart cart = new ShoppingCart();
+        cart.addProduct(new Product("Laptop", 50000));
+        cart.addProduct(new Product("Mouse", 2000.75));
+        cart.addProduct(new Product("K\u00e9yboard \u2328", 1499.99));
+        SaveProductToFile sink = new SaveProductToFile(cart, path);
+        sink.save();
+        sink.save(new Product("Cable", 99.5));
+
+        try (ProductFile.Reader reader = new ProductFile.Reader(path)) {
+            if (reader.count() != 4)
+                throw new IllegalStateException("Expected 4 products but file holds " + reader.count());
+            for (int i = 0; reader.next(); i++) {
+                Product expected = i < 3 ? cart.getProducts().get(i) : new Product("Cable", 99.5);
+                if (!reader.name().equals(expected.name) || reader.pricePaise() != ProductFile.toPaise(expected.price))
+                    throw new IllegalStateException("Product " + i + " did not round-trip: " + reader.name());
+            }
+        }
+        System.out.println("Round trip: 4 products read back unchanged.");
+
+        // A pipeline or publisher run rewrites the file once with the cart instead of appending line by line.
+        new SaveProductPipeline(List.of(sink), 16).save(cart);
+        checkCount(path, 3, "pipeline run");
+        try (ProductPublisher publisher = new ProductPublisher(16, 4, ProductPublisher.Overflow.BLOCK)) {
+            publisher.subscribe(sink);
+            publisher.publish(cart);
+            publisher.finish();
+        }
+        checkCount(path, 3, "publisher run");
+        System.out.println("Pipeline and publisher runs: file holds the cart exactly once.");
+    }
+
+    private static void checkCount(Path path, int expected, String run) throws IOException {
+        try (ProductFile.Reader reader = new ProductFile.Reader(path)) {
+            if (reader.count() != expected)
+                throw new IllegalStateException(run + ": expected " + expected + " products but file holds "
+                        + reader.count());
+        }
+    }
+
+    private static void throughput(Path path, int products) throws IOException {
+        String[] catalog = {"Laptop", "Mouse", "Keyboard", "Monitor", "Cable"};
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            try (ProductFile.Writer writer = ProductFile.Writer.create(path)) {
+                for (int i = 0; i < products; i++)
+                    writer.write(catalog[i % catalog.length], i % 100_000 / 100.0);
+            }
+            long writeMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            long totalPaise = 0;
+            long count = 0;
+            try (ProductFile.Reader reader = new ProductFile.Reader(path)) {
+                while (reader.next()) {
+                    totalPaise += reader.pricePaise();
+                    count++;
+                }
+            }
+            long readMillis = (System.nanoTime() - start) / 1_000_000;
+            if (count != products)
+                throw new IllegalStateException("Read " + count + " of " + products + " products.");
+            if (round == 2)
+                System.out.printf("%,d products (%,d MB): dump %,d ms, reload %,d ms, total Rs %,.2f%n", products,
+                        Files.size(path) >> 20, writeMillis, readMillis, totalPaise / 100.0);
+        }
+    }
+}
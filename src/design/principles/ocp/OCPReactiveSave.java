@@ -0,0 +1,55 @@
+package design.principles.ocp;
+
+import java.util.concurrent.locks.LockSupport;
+
+// Continuous cart traffic into a fast sink and a deliberately slow one (about 200 us per product) through
+// ProductPublisher. With BLOCK every product reaches both sinks and publishing slows to the slow sink's pace;
+// with DROP publishing runs at full speed and the slow sink loses what does not fit in its buffer.
+// Either way a sink never holds more than its buffer plus one requested batch of unsaved products.
+public class OCPReactiveSave {
+    public static void main(String[] args) {
+        int products = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int buffer = 256;
+        int batch = 32;
+        for (ProductPublisher.Overflow overflow : ProductPublisher.Overflow.values()) {
+            try (ProductPublisher publisher = new ProductPublisher(buffer, batch, overflow)) {
+                ProductPublisher.SinkSubscriber fast = publisher.subscribe(new FastSink());
+                ProductPublisher.SinkSubscriber slow = publisher.subscribe(new SlowSink());
+                int maxLag = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < products; i++) {
+                    publisher.publish(new Product("Product-" + i % 100, 10 + i % 50));
+                    maxLag = Math.max(maxLag, publisher.maxLag());
+                }
+                long publishMillis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("%s: published %,d products in %,d ms, max unsaved %,d (bound %,d)%n",
+                        overflow, products, publishMillis, maxLag, buffer + batch);
+                publisher.finish().forEach(report -> System.out.println("  " + report));
+                System.out.printf("  dropped: FastSink %,d, SlowSink %,d%n", fast.dropped(), slow.dropped());
+                if (maxLag > buffer + batch)
+                    throw new IllegalStateException("A sink held more than its buffer plus one batch.");
+            }
+        }
+    }
+
+    private static final class FastSink implements SaveProduct {
+        @Override
+        public void save() {
+        }
+
+        @Override
+        public void save(Product product) {
+        }
+    }
+
+    private static final class SlowSink implements SaveProduct {
+        @Override
+        public void save() {
+        }
+
+        @Override
+        public void save(Product product) {
+            LockSupport.parkNanos(200_000);
+        }
+    }
+}
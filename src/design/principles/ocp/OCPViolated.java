@@ -1,12 +1,20 @@
 package design.principles.ocp;
 
-import java.util.ArrayList;
+import design.principles.catalog.CartLines;
+import design.principles.catalog.ProductCatalog;
+import design.principles.invoice.InvoiceWriter;
+import design.principles.metrics.Metrics;
+import design.principles.metrics.OperationMetrics;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
-// Product class representing any item of any ECommerce.
-class Product {
-    public String name;
-    public double price;
+// Product class representing any item of any ECommerce. Immutable (final, with final fields), so carts can share
+// one instance per item and keep a running total that no caller can invalidate.
+final class Product {
+    public final String name;
+    public final double price;
 
     public Product(String name, double price) {
         this.name = name;
@@ -14,33 +22,99 @@ class Product {
     }
 }
 
+// Lines are a catalog product id plus a quantity (CartLines), and the total is kept up to date on every add/remove,
+// so calculateTotal() is O(1) and free of floating-point drift however many lines the cart has.
+// Adding an item already in the cart raises its quantity, so getProducts() groups units by item in first-added order.
+// It hands out the catalog's shared Product per unit, the instance first added for that item, with its price exactly
+// as given; the total adds each unit's price rounded to whole paise.
 class ShoppingCart {
-    private final List<Product> products = new ArrayList<>();
+    private final CartLines<Product> lines;
+
+    public ShoppingCart() {
+        this(new ProductCatalog<>(Product::new));
+    }
+
+    public ShoppingCart(ProductCatalog<Product> catalog) {
+        this.lines = new CartLines<>(catalog);
+    }
 
     public void addProduct(Product p) {
-        products.add(p);
+        addProduct(p, 1);
     }
 
+    public void addProduct(Product p, int quantity) {
+        lines.add(lines.catalog().intern(p, p.name, p.price), quantity);
+    }
+
+    public void addProduct(int productId, int quantity) {
+        lines.add(productId, quantity);
+    }
+
+    // `index` counts units, as in getProducts().
+    public Product removeProduct(int index) {
+        return lines.removeUnit(index);
+    }
+
+    public boolean removeProduct(Product p) {
+        int id = lines.catalog().idOf(p.name, p.price);
+        return id >= 0 && lines.removeProduct(id);
+    }
+
+    // Read-only view, one element per unit.
     public List<Product> getProducts() {
-        return products;
+        return lines.unitList();
+    }
+
+    public CartLines<Product> lines() {
+        return lines;
     }
 
     // 1. Calculates total price in cart.
     public double calculateTotal() {
-        double total = 0;
-        for (Product p : products) {
-            total += p.price;
-        }
-        return total;
+        return lines.totalInPaise() / 100.0;
+    }
+
+    public long totalInPaise() {
+        return lines.totalInPaise();
     }
 }
 
+// Invoice latency is recorded under "ocp.ShoppingCartPrinter.printInvoice" and "ocp.ShoppingCartPrinter.writeInvoice".
 record ShoppingCartPrinter(ShoppingCart cart) {
+    private static final OperationMetrics PRINTS = Metrics.operation("ocp.ShoppingCartPrinter.printInvoice");
+    private static final OperationMetrics INVOICES = Metrics.operation("ocp.ShoppingCartPrinter.writeInvoice");
+
     public void printInvoice() {
+        long start = PRINTS.start();
         System.out.println("Shopping Cart Invoice:");
         List<Product> products = cart.getProducts();
         for (Product p : products)
             System.out.println(p.name + " - Rs " + p.price);
+        PRINTS.stop(start);
+    }
+
+    // Same invoice as printInvoice, streamed through a reused buffer into any Appendable.
+    public void writeInvoice(Appendable out) throws IOException {
+        write(InvoiceWriter.to(out));
+    }
+
+    public void writeInvoice(WritableByteChannel out, boolean gzip) throws IOException {
+        write(InvoiceWriter.to(out, gzip));
+    }
+
+    private void write(InvoiceWriter invoice) throws IOException {
+        long start = INVOICES.start();
+        boolean failed = true;
+        try {
+            try (InvoiceWriter writer = invoice) {
+                writer.header("Shopping Cart Invoice:");
+                for (Product p : cart.getProducts())
+                    writer.line(p.name, p.price);
+            }
+            failed = false;
+        } finally {
+            INVOICES.stop(start, failed);
+        }
     }
 }
 
@@ -0,0 +1,196 @@
+package design.principles.ocp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+// Compact binary product file, written and read through memory-mapped windows of a FileChannel.
+// Layout: [int magic][long count] then per product [unsigned short name length][UTF-8 name][long price in paise].
+final class ProductFile {
+    static final int MAGIC = 0x50524F44;
+    static final int HEADER_BYTES = Integer.BYTES + Long.BYTES;
+    private static final int FIRST_WINDOW_BYTES = 64 << 10;
+    private static final int WINDOW_BYTES = 64 << 20;
+
+    private ProductFile() {
+    }
+
+    static long toPaise(double price) {
+        return Math.round(price * 100);
+    }
+
+    static final class Writer implements Closeable {
+        private static final int MAX_CACHED_NAMES = 1 << 16;
+
+        private final FileChannel channel;
+        private final Map<String, byte[]> encodedNames = new HashMap<>();
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long count;
+
+        private Writer(FileChannel channel, long position, long count) throws IOException {
+            this.channel = channel;
+            this.count = count;
+            this.windowStart = position;
+            // Windows start small and double up to WINDOW_BYTES, so a writer for a handful of products maps
+            // (and grows the file by) kilobytes, not the full window.
+            this.window = channel.map(FileChannel.MapMode.READ_WRITE, position, FIRST_WINDOW_BYTES);
+        }
+
+        // Starts a new, empty file (replacing any existing one).
+        static Writer create(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            return new Writer(channel, HEADER_BYTES, 0);
+        }
+
+        // Continues an existing file after its last product, or starts a new one.
+        static Writer append(Path path) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            if (channel.size() == 0)
+                return new Writer(channel, HEADER_BYTES, 0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException("Not a product file: " + path);
+            }
+            return new Writer(channel, channel.size(), header.getLong());
+        }
+
+        void write(Product product) {
+            write(product.name, product.price);
+        }
+
+        void write(String name, double price) {
+            byte[] nameBytes = encodedNames.get(name);
+            if (nameBytes == null) {
+                nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                if (encodedNames.size() < MAX_CACHED_NAMES)
+                    encodedNames.put(name, nameBytes);
+            }
+            if (nameBytes.length > 0xFFFF)
+                throw new IllegalArgumentException("Product name longer than 65535 bytes.");
+            ensureRemaining(Short.BYTES + nameBytes.length + Long.BYTES);
+            window.putShort((short) nameBytes.length).put(nameBytes).putLong(toPaise(price));
+            count++;
+        }
+
+        // Trims the file to what was written and records the product count in the header.
+        @Override
+        public void close() throws IOException {
+            try {
+                window.force();
+                channel.truncate(windowStart + window.position());
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putLong(count).flip();
+                while (header.hasRemaining())
+                    channel.write(header, HEADER_BYTES - header.remaining());
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void ensureRemaining(int bytes) {
+            if (window.remaining() >= bytes)
+                return;
+            try {
+                windowStart += window.position();
+                int next = Math.min(WINDOW_BYTES, window.capacity() * 2);
+                window = channel.map(FileChannel.MapMode.READ_WRITE, windowStart, Math.max(next, bytes));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    // Cursor over the products of a file. Accessors read straight from the mapping; nothing is copied
+    // unless name() is asked to build a String.
+    static final class Reader implements Closeable {
+        private final FileChannel channel;
+        private final long size;
+        private final long count;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long read;
+        private int nameOffset;
+        private int nameLength;
+        private long pricePaise;
+
+        Reader(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.size = channel.size();
+            map(0);
+            if (size < HEADER_BYTES || window.getInt() != MAGIC) {
+                channel.close();
+                throw new IOException("Not a product file: " + path);
+            }
+            this.count = window.getLong();
+        }
+
+        long count() {
+            return count;
+        }
+
+        boolean next() throws IOException {
+            if (read == count)
+                return false;
+            ensureRemaining(Short.BYTES);
+            nameLength = Short.toUnsignedInt(window.getShort());
+            ensureRemaining(nameLength + Long.BYTES);
+            nameOffset = window.position();
+            window.position(nameOffset + nameLength);
+            pricePaise = window.getLong();
+            read++;
+            return true;
+        }
+
+        // Name of the current product as a read-only view into the mapping.
+        ByteBuffer nameBytes() {
+            return window.slice(nameOffset, nameLength).asReadOnlyBuffer();
+        }
+
+        String name() {
+            byte[] bytes = new byte[nameLength];
+            window.get(nameOffset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        long pricePaise() {
+            return pricePaise;
+        }
+
+        double price() {
+            return pricePaise / 100.0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private void ensureRemaining(int bytes) throws IOException {
+            if (window.remaining() >= bytes)
+                return;
+            long position = windowStart + window.position();
+            if (size - position < bytes)
+                throw new IOException("Product file is truncated.");
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_BYTES, size - position));
+        }
+    }
+}
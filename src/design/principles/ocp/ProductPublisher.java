@@ -0,0 +1,187 @@
+package design.principles.ocp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+// Reactive counterpart of SaveProductPipeline for continuous cart traffic: products are published to every
+// subscribed SaveProduct sink through a java.util.concurrent.Flow publisher. Each sink has its own bounded buffer
+// of `bufferCapacity` products and pulls from it with demand-driven requests, `batch` at a time, so memory stays
+// bounded however slow a sink is. When a sink's buffer is full, Overflow.BLOCK makes publish() wait for it,
+// slowing producers to the slowest sink; Overflow.DROP discards the product for that sink only and counts it.
+// A sink's stream is one run: begin() on subscription and end() on completion, with the same failure accounting as
+// SaveProductPipeline.
+final class ProductPublisher implements AutoCloseable {
+    enum Overflow { BLOCK, DROP }
+
+    private final Overflow overflow;
+    private final int batch;
+    private final ExecutorService executor;
+    private final SubmissionPublisher<Product> publisher;
+    private final List<SinkSubscriber> subscribers = new ArrayList<>();
+
+    ProductPublisher(int bufferCapacity, int batch, Overflow overflow) {
+        if (batch <= 0 || bufferCapacity < batch)
+            throw new IllegalArgumentException("batch must be positive and bufferCapacity at least batch.");
+        this.overflow = overflow;
+        this.batch = batch;
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "product-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new SubmissionPublisher<>(executor, bufferCapacity);
+    }
+
+    // Subscribe every sink before publishing; a late subscriber only sees products published after it joined.
+    SinkSubscriber subscribe(SaveProduct sink) {
+        SinkSubscriber subscriber = new SinkSubscriber(sink, batch);
+        synchronized (subscribers) {
+            subscribers.add(subscriber);
+        }
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    void publish(Product product) {
+        if (overflow == Overflow.BLOCK) {
+            publisher.submit(product);
+        } else {
+            publisher.offer(product, (subscriber, dropped) -> {
+                ((SinkSubscriber) subscriber).dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    void publish(ShoppingCart cart) {
+        cart.getProducts().forEach(this::publish);
+    }
+
+    // Largest number of products any sink has been sent but not yet saved: at most its buffer plus one batch.
+    int maxLag() {
+        return publisher.estimateMaximumLag();
+    }
+
+    // Completes the stream and waits until every sink has drained its buffer; returns one report per sink.
+    List<SinkReport> finish() {
+        publisher.close();
+        List<SinkReport> reports = new ArrayList<>();
+        synchronized (subscribers) {
+            for (SinkSubscriber subscriber : subscribers)
+                reports.add(subscriber.awaitReport());
+        }
+        return reports;
+    }
+
+    @Override
+    public void close() {
+        publisher.close();
+        executor.shutdown();
+    }
+
+    static final class SinkSubscriber implements Flow.Subscriber<Product> {
+        private final SaveProduct sink;
+        private final int batch;
+        private final LongAdder dropped = new LongAdder();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final long start = System.nanoTime();
+
+        // Only touched by the delivering thread, and read after `done`.
+        private Flow.Subscription subscription;
+        private boolean started;
+        private int untilNextRequest;
+        private int saved;
+        private int failed;
+        private RuntimeException firstFailure;
+        private long elapsedNanos;
+
+        private SinkSubscriber(SaveProduct sink, int batch) {
+            this.sink = sink;
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            try {
+                sink.begin();
+                started = true;
+            } catch (RuntimeException e) {
+                firstFailure = e;
+            }
+            untilNextRequest = batch;
+            subscription.request(batch);
+        }
+
+        @Override
+        public void onNext(Product product) {
+            if (!started) {
+                failed++;
+            } else {
+                try {
+                    sink.save(product);
+                    saved++;
+                } catch (RuntimeException e) {
+                    failed++;
+                    if (firstFailure == null)
+                        firstFailure = e;
+                }
+            }
+            if (--untilNextRequest == 0) {
+                untilNextRequest = batch;
+                subscription.request(batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (firstFailure == null)
+                firstFailure = new IllegalStateException("Product stream failed.", throwable);
+            finish();
+        }
+
+        @Override
+        public void onComplete() {
+            finish();
+        }
+
+        long dropped() {
+            return dropped.sum();
+        }
+
+        private void finish() {
+            if (started) {
+                try {
+                    sink.end();
+                } catch (RuntimeException e) {
+                    failed += saved;
+                    saved = 0;
+                    if (firstFailure == null)
+                        firstFailure = e;
+                }
+            }
+            elapsedNanos = System.nanoTime() - start;
+            done.countDown();
+        }
+
+        private SinkReport awaitReport() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + name() + ".", e);
+            }
+            return new SinkReport(name(), saved, failed, elapsedNanos, firstFailure);
+        }
+
+        private String name() {
+            return sink.getClass().getSimpleName();
+        }
+    }
+}
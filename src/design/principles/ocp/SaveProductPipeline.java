@@ -0,0 +1,118 @@
+package design.principles.ocp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+record SinkReport(String sink, int saved, int failed, long elapsedNanos, RuntimeException firstFailure) {
+    @Override
+    public String toString() {
+        return sink + ": saved " + saved + ", failed " + failed + " in " + elapsedNanos / 1_000_000 + " ms"
+                + (firstFailure == null ? "" : " (first failure: " + firstFailure.getMessage() + ")");
+    }
+}
+
+// Reads the cart once and fans every line out to all registered sinks. Each sink has its own bounded queue
+// and worker thread, so sinks run side by side: wall-clock time is the slowest sink's, not the sum of all.
+// A full queue blocks the reader, which bounds memory when a sink falls behind.
+// A sink that throws on a line is counted as a failure for that line and keeps receiving the rest.
+// Each sink's lines are bracketed by begin() and end(), so a sink can write the whole cart as one run. If begin()
+// fails, every line counts as failed; if end() fails, nothing of the run is durable and every line counts as failed.
+final class SaveProductPipeline {
+    private static final Product END = new Product("", 0);
+
+    private final List<SaveProduct> sinks;
+    private final int queueCapacity;
+
+    SaveProductPipeline(List<SaveProduct> sinks, int queueCapacity) {
+        this.sinks = List.copyOf(sinks);
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Blocks until every sink has seen every line; returns one report per sink, in registration order.
+    List<SinkReport> save(ShoppingCart cart) {
+        List<BlockingQueue<Product>> queues = new ArrayList<>(sinks.size());
+        List<SinkWorker> workers = new ArrayList<>(sinks.size());
+        for (SaveProduct sink : sinks) {
+            BlockingQueue<Product> queue = new ArrayBlockingQueue<>(queueCapacity);
+            SinkWorker worker = new SinkWorker(sink, queue);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+        try {
+            for (Product product : cart.getProducts())
+                for (BlockingQueue<Product> queue : queues)
+                    queue.put(product);
+            for (BlockingQueue<Product> queue : queues)
+                queue.put(END);
+            List<SinkReport> reports = new ArrayList<>(workers.size());
+            for (SinkWorker worker : workers) {
+                worker.join();
+                reports.add(worker.report);
+            }
+            return reports;
+        } catch (InterruptedException e) {
+            workers.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while saving products.", e);
+        }
+    }
+
+    private static final class SinkWorker extends Thread {
+        private final SaveProduct sink;
+        private final BlockingQueue<Product> queue;
+        private SinkReport report;
+
+        SinkWorker(SaveProduct sink, BlockingQueue<Product> queue) {
+            super("save-product-" + sink.getClass().getSimpleName());
+            this.sink = sink;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            int saved = 0;
+            int failed = 0;
+            RuntimeException firstFailure = null;
+            boolean started = false;
+            try {
+                sink.begin();
+                started = true;
+            } catch (RuntimeException e) {
+                firstFailure = e;
+            }
+            try {
+                for (Product product = queue.take(); product != END; product = queue.take()) {
+                    if (!started) {
+                        failed++;
+                        continue;
+                    }
+                    try {
+                        sink.save(product);
+                        saved++;
+                    } catch (RuntimeException e) {
+                        failed++;
+                        if (firstFailure == null)
+                            firstFailure = e;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (started) {
+                try {
+                    sink.end();
+                } catch (RuntimeException e) {
+                    failed += saved;
+                    saved = 0;
+                    if (firstFailure == null)
+                        firstFailure = e;
+                }
+            }
+            report = new SinkReport(sink.getClass().getSimpleName(), saved, failed, System.nanoTime() - start, firstFailure);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package design.principles.srp;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ShopCart for many request threads adding at once. Appends are lock-free: a thread claims a slot with one
+// getAndIncrement and writes into a chunk, so existing lines are never copied or moved.
+// Chunks double in size (16, 32, 64, ... slots) and each is created on first use and published with a CAS, so an
+// empty cart costs a few hundred bytes and the 27-entry chunk table covers every int slot.
+// The total is a LongAdder in paise, striped across cells so concurrent adds do not contend on one counter.
+class ConcurrentShopCart {
+    private static final int FIRST_CHUNK_BITS = 4;
+    private static final int FIRST_CHUNK_SIZE = 1 << FIRST_CHUNK_BITS;
+    private static final int CAPACITY = Integer.MAX_VALUE - FIRST_CHUNK_SIZE;
+    private static final long PUBLISH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Published into a claimed slot whose add failed, so readers fail fast instead of waiting for it.
+    private static final Product ABANDONED = new Product("", 0);
+
+    private final AtomicReferenceArray<AtomicReferenceArray<Product>> chunks =
+            new AtomicReferenceArray<>(31 - FIRST_CHUNK_BITS);
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final LongAdder totalInPaise = new LongAdder();
+
+    public void addProduct(Product p) {
+        long paise = Math.round(p.price() * 100);
+        int slot = claimed.getAndIncrement();
+        if (slot < 0 || slot >= CAPACITY)
+            throw new IllegalStateException("Cart is full.");
+        try {
+            chunk(chunkOf(slot)).set(offsetOf(slot), p);
+        } catch (RuntimeException | Error e) {
+            AtomicReferenceArray<Product> chunk = chunks.get(chunkOf(slot));
+            if (chunk != null)
+                chunk.set(offsetOf(slot), ABANDONED);
+            throw e;
+        }
+        totalInPaise.add(paise);
+    }
+
+    // Snapshot of the lines added so far, without copying them: later adds are not visible through it.
+    // A slot claimed by an add that is still in progress is waited for on access, for at most a second; a slot
+    // whose add failed, or that is not published in time, throws IllegalStateException.
+    public List<Product> getProducts() {
+        int size = Math.min(claimed.get(), CAPACITY);
+        return new AbstractList<>() {
+            @Override
+            public Product get(int index) {
+                Objects.checkIndex(index, size);
+                return awaitPublished(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // 1. Calculates total price in cart.
+    public double calculateTotal() {
+        return totalInPaise.sum() / 100.0;
+    }
+
+    public long totalInPaise() {
+        return totalInPaise.sum();
+    }
+
+    private Product awaitPublished(int slot) {
+        long deadline = 0;
+        for (int spins = 0; ; spins++) {
+            AtomicReferenceArray<Product> chunk = chunks.get(chunkOf(slot));
+            Product product = chunk == null ? null : chunk.get(offsetOf(slot));
+            if (product == ABANDONED)
+                throw new IllegalStateException("Line " + slot + " was never added: its add failed.");
+            if (product != null)
+                return product;
+            if (spins < 100) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (deadline == 0)
+                deadline = System.nanoTime() + PUBLISH_TIMEOUT_NANOS;
+            else if (System.nanoTime() - deadline > 0)
+                throw new IllegalStateException("Line " + slot + " was claimed but not added within a second.");
+            Thread.yield();
+        }
+    }
+
+    // Slot s lives in chunk k = floor(log2(s + 16)) - 4, which holds 16 << k slots.
+    private static int chunkOf(int slot) {
+        return 31 - Integer.numberOfLeadingZeros(slot + FIRST_CHUNK_SIZE) - FIRST_CHUNK_BITS;
+    }
+
+    private static int offsetOf(int slot) {
+        return slot + FIRST_CHUNK_SIZE - Integer.highestOneBit(slot + FIRST_CHUNK_SIZE);
+    }
+
+    private AtomicReferenceArray<Product> chunk(int index) {
+        AtomicReferenceArray<Product> chunk = chunks.get(index);
+        if (chunk != null)
+            return chunk;
+        chunks.compareAndSet(index, null, new AtomicReferenceArray<>(FIRST_CHUNK_SIZE << index));
+        return chunks.get(index);
+    }
+}
@@ -0,0 +1,62 @@
+package design.principles.srp;
+
+import java.util.List;
+
+// Large-cart check of the running total: ShopCart (column-wise, paise, O(1) total) against
+// ShoppingCart (list of records, double sum on every call).
+public class SRPCartTotals {
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int reads = 1_000;
+
+        ShopCart shopCart = new ShopCart();
+        ShoppingCart shoppingCart = new ShoppingCart();
+        String[] catalog = {"Laptop", "Mouse", "Keyboard", "Monitor", "Cable"};
+        for (int i = 0; i < lines; i++) {
+            Product product = new Product(catalog[i % catalog.length], 0.10 + i % 1000 / 100.0);
+            shopCart.addProduct(product);
+            shoppingCart.addProduct(product);
+        }
+        shopCart.removeProduct(0);
+        shopCart.addProduct(new Product(catalog[0], 0.10));
+
+        long start = System.nanoTime();
+        double listTotal = 0;
+        for (int i = 0; i < reads; i++)
+            listTotal = shoppingCart.calculateTotal();
+        long listNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long paise = 0;
+        for (int i = 0; i < reads; i++)
+            paise = shopCart.totalInPaise();
+        long runningNanos = System.nanoTime() - start;
+
+        System.out.printf("%,d lines, %,d reads: list sum %,d us (total %s), running total %,d us (total %s)%n",
+                lines, reads, listNanos / 1_000, listTotal, runningNanos / 1_000, shopCart.calculateTotal());
+        System.out.println("Drift of the double sum: " + (listTotal - paise / 100.0));
+
+        // Sub-paise prices come back unchanged; only the total rounds them, unit by unit.
+        ShopCart cart = new ShopCart();
+        cart.addProduct(new Product("Cable", 10.005), 3);
+        if (cart.getProducts().get(0).price() != 10.005 || cart.totalInPaise() != 3 * 1_001)
+            throw new IllegalStateException("ShopCart changed a price or rounded the total differently.");
+
+        // Adding an item again merges into its line, and the cart hands back the instance first added.
+        Product cable = new Product("Cable", 2.5);
+        ShopCart merged = new ShopCart();
+        merged.addProduct(cable);
+        merged.addProduct(new Product("Cable", 2.5), 2);
+        if (merged.lines().lines() != 1 || merged.lines().quantity(0) != 3 || merged.getProducts().get(2) != cable)
+            throw new IllegalStateException("ShopCart did not merge repeated adds into the first instance's line.");
+
+        // Units come back grouped by product, in the order each product was first added.
+        Product mouse = new Product("Mouse", 1.5);
+        ShopCart grouped = new ShopCart();
+        grouped.addProduct(cable);
+        grouped.addProduct(mouse);
+        grouped.addProduct(cable);
+        if (!grouped.getProducts().equals(List.of(cable, cable, mouse)))
+            throw new IllegalStateException("Cable, Mouse, Cable read back as " + grouped.getProducts() + ".");
+    }
+}
@@ -0,0 +1,51 @@
+package design.principles.srp;
+
+import design.principles.catalog.ProductCatalog;
+
+import java.lang.ref.Reference;
+import java.util.function.Supplier;
+
+// Heap footprint of a cart with millions of units, 5 of each item of a 1,000,000-item catalog: a list of Product
+// records (one object per unit) against ShopCart, whose repeated adds of an item merge into one id-plus-quantity line.
+// The catalog itself is built up front and shared, as it would be across every cart of a shop.
+public class SRPCatalogFootprint {
+    public static void main(String[] args) {
+        int units = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int items = units / 5;
+        ProductCatalog<Product> catalog = new ProductCatalog<>(Product::new);
+        for (int i = 0; i < items; i++)
+            catalog.intern("Product-" + i, 10 + i % 500 / 4.0);
+
+        long listBytes = measure(() -> {
+            ShoppingCart cart = new ShoppingCart();
+            for (int i = 0; i < units; i++) { // fresh name strings, as when each line is parsed from a request
+                String name = new String(catalog.name(i % items));
+                cart.addProduct(new Product(name, catalog.priceInPaise(i % items) / 100.0));
+            }
+            return cart;
+        });
+        long cartBytes = measure(() -> {
+            ShopCart cart = new ShopCart(catalog);
+            for (int i = 0; i < units; i++)
+                cart.addProduct(i % items, 1);
+            return cart;
+        });
+        System.out.printf("%,d units of %,d items: List<Product> %,d MB, ShopCart %,d MB%n",
+                units, items, listBytes >> 20, cartBytes >> 20);
+    }
+
+    private static long measure(Supplier<Object> allocation) {
+        long before = usedAfterGc();
+        Object retained = allocation.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(retained);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
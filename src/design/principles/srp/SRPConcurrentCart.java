@@ -0,0 +1,48 @@
+package design.principles.srp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Multi-threaded add throughput of ConcurrentShopCart. Every line and every paisa must be accounted for afterwards.
+public class SRPConcurrentCart {
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int addsPerThread = 500_000;
+        Product laptop = new Product("Laptop", 50000);
+        Product mouse = new Product("Mouse", 2000.25);
+
+        for (int round = 0; round < 3; round++) {
+            ConcurrentShopCart cart = new ConcurrentShopCart();
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Thread(() -> {
+                    for (int i = 0; i < addsPerThread; i++)
+                        cart.addProduct(i % 2 == 0 ? laptop : mouse);
+                }));
+            }
+            long start = System.nanoTime();
+            workers.forEach(Thread::start);
+            for (Thread worker : workers)
+                worker.join();
+            long elapsedNanos = System.nanoTime() - start;
+
+            int lines = threads * addsPerThread;
+            long expectedPaise = (long) threads * (addsPerThread / 2) * (5_000_000 + 200_025);
+            long laptops = cart.getProducts().stream().filter(product -> product == laptop).count();
+            if (cart.getProducts().size() != lines || cart.totalInPaise() != expectedPaise || laptops != lines / 2)
+                throw new IllegalStateException("Lost updates: " + cart.getProducts().size() + " lines, "
+                        + cart.totalInPaise() + " paise.");
+            System.out.printf("%d threads: %,d adds in %,d ms (%,.0f adds/s), total Rs %s%n", threads, lines,
+                    elapsedNanos / 1_000_000, lines * 1e9 / elapsedNanos, cart.calculateTotal());
+        }
+
+        // Single-threaded, lines come back in the order they were added, across chunk boundaries.
+        ConcurrentShopCart cart = new ConcurrentShopCart();
+        for (int i = 0; i < 100_000; i++)
+            cart.addProduct(new Product("Item-" + i, i));
+        List<Product> products = cart.getProducts();
+        for (int i = 0; i < products.size(); i++)
+            if (products.get(i).price() != i)
+                throw new IllegalStateException("Line " + i + " holds " + products.get(i));
+    }
+}
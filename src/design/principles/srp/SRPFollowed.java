@@ -1,41 +1,127 @@
 package design.principles.srp;
 
-import java.util.ArrayList;
+import design.principles.catalog.CartChange;
+import design.principles.catalog.CartLines;
+import design.principles.catalog.ProductCatalog;
+import design.principles.invoice.InvoiceWriter;
+import design.principles.metrics.Metrics;
+import design.principles.metrics.OperationMetrics;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
 import java.util.List;
 
+// Lines are a catalog product id plus a quantity (CartLines), and the total is kept up to date on every add/remove,
+// so calculateTotal() is O(1) and free of floating-point drift however many lines the cart has.
+// Adding an item already in the cart raises its quantity, so getProducts() groups units by item in first-added order.
+// Carts built from one shared ProductCatalog hand out the same Product instance for the same item: the first one added.
+// getProducts() returns prices exactly as they were added; the total adds each unit's price rounded to whole paise.
 class ShopCart {
-    private final List<Product> products = new ArrayList<>();
+    private final CartLines<Product> lines;
+
+    public ShopCart() {
+        this(new ProductCatalog<>(Product::new));
+    }
+
+    public ShopCart(ProductCatalog<Product> catalog) {
+        this.lines = new CartLines<>(catalog);
+    }
 
     public void addProduct(Product p) {
-        products.add(p);
+        addProduct(p, 1);
+    }
+
+    public void addProduct(Product p, int quantity) {
+        lines.add(lines.catalog().intern(p, p.name(), p.price()), quantity);
     }
 
+    // Adds by catalog id, for callers that already hold ids instead of Product objects.
+    public void addProduct(int productId, int quantity) {
+        lines.add(productId, quantity);
+    }
+
+    // `index` counts units, as in getProducts().
+    public Product removeProduct(int index) {
+        return lines.removeUnit(index);
+    }
+
+    public boolean removeProduct(Product p) {
+        int id = lines.catalog().idOf(p.name(), p.price());
+        return id >= 0 && lines.removeProduct(id);
+    }
+
+    // Read-only view, one element per unit; elements are the catalog's shared instances.
     public List<Product> getProducts() {
-        return products;
+        return lines.unitList();
+    }
+
+    // The compact form: id and quantity columns plus the catalog they refer to.
+    public CartLines<Product> lines() {
+        return lines;
     }
 
     // 1. Calculates total price in cart.
     public double calculateTotal() {
-        double total = 0;
-        for (Product p : products)
-            total += p.price();
+        return lines.totalInPaise() / 100.0;
+    }
 
-        return total;
+    public long totalInPaise() {
+        return lines.totalInPaise();
     }
 }
 
+// Invoice latency is recorded under "srp.ShoppingCartPrinter.printInvoice" and "srp.ShoppingCartPrinter.writeInvoice".
 record ShoppingCartPrinter(ShopCart cart) {
+    private static final OperationMetrics PRINTS = Metrics.operation("srp.ShoppingCartPrinter.printInvoice");
+    private static final OperationMetrics INVOICES = Metrics.operation("srp.ShoppingCartPrinter.writeInvoice");
+
     public void printInvoice() {
+        long start = PRINTS.start();
         System.out.println("Shopping Cart Invoice:");
         List<Product> products = cart.getProducts();
         for (Product p : products)
             System.out.println(p.name() + " - Rs " + p.price());
+        PRINTS.stop(start);
+    }
+
+    // Same invoice as printInvoice, streamed through a reused buffer into any Appendable.
+    public void writeInvoice(Appendable out) throws IOException {
+        write(InvoiceWriter.to(out));
+    }
+
+    public void writeInvoice(WritableByteChannel out, boolean gzip) throws IOException {
+        write(InvoiceWriter.to(out, gzip));
+    }
+
+    private void write(InvoiceWriter invoice) throws IOException {
+        long start = INVOICES.start();
+        boolean failed = true;
+        try {
+            try (InvoiceWriter writer = invoice) {
+                writer.header("Shopping Cart Invoice:");
+                for (Product p : cart.getProducts())
+                    writer.line(p.name(), p.price());
+            }
+            failed = false;
+        } finally {
+            INVOICES.stop(start, failed);
+        }
     }
 }
 
 record SaveProduct(ShopCart cart) {
     public void saveToDb() {
         cart.getProducts().forEach(p -> System.out.println("Product : " + p.name() + " with price: " + p.price() + " saved to database."));
+        cart.lines().checkpoint();
+    }
+
+    // Writes only the products whose quantity changed since the last save; returns how many.
+    public int saveChangesToDb() {
+        List<CartChange<Product>> changes = cart.lines().drainChanges();
+        for (CartChange<Product> change : changes)
+            System.out.println("Product : " + change.product().name() + " quantity " + change.quantity() + " "
+                    + change.kind().name().toLowerCase() + " in database.");
+        return changes.size();
     }
 }
 
@@ -53,5 +139,12 @@ public class SRPFollowed {
 
         SaveProduct save = new SaveProduct(cart);
         save.saveToDb();
+
+        // Incremental save: only the lines changed since the save above reach the database.
+        System.out.println();
+        cart.addProduct(new Product("Keyboard", 1500));
+        cart.addProduct(new Product("Mouse", 2000));
+        cart.removeProduct(new Product("Laptop", 50000));
+        save.saveChangesToDb();
     }
 }
\ No newline at end of file
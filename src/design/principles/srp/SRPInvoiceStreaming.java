@@ -0,0 +1,64 @@
+package design.principles.srp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+// Invoice throughput: printInvoice (println per line) against the streaming writer, plain and gzip.
+// Output goes to discarding sinks so only rendering and I/O-call overhead is measured.
+public class SRPInvoiceStreaming {
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ShopCart cart = new ShopCart();
+        for (int i = 0; i < lines; i++)
+            cart.addProduct(new Product(i % 2 == 0 ? "Laptop" : "Mouse", i % 2 == 0 ? 50000 : 2000.5));
+        ShoppingCartPrinter printer = new ShoppingCartPrinter(cart);
+
+        // The streamed invoice, plain and gzip, must match printInvoice byte for byte.
+        ShopCart small = new ShopCart();
+        small.addProduct(new Product("Laptop", 50000));
+        small.addProduct(new Product("Mouse", 2000));
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(printed, true));
+        new ShoppingCartPrinter(small).printInvoice();
+        System.setOut(console);
+        StringBuilder streamed = new StringBuilder();
+        new ShoppingCartPrinter(small).writeInvoice(streamed);
+        if (!printed.toString().equals(streamed.toString()))
+            throw new IllegalStateException("Streamed invoice differs from printInvoice.");
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ShoppingCartPrinter(small).writeInvoice(Channels.newChannel(compressed), true);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            if (!printed.toString().equals(new String(in.readAllBytes(), StandardCharsets.UTF_8)))
+                throw new IllegalStateException("Gzip invoice differs from printInvoice.");
+        }
+
+        WritableByteChannel discard = Channels.newChannel(OutputStream.nullOutputStream());
+        for (int round = 0; round < 3; round++) {
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            long start = System.nanoTime();
+            printer.printInvoice();
+            long printMillis = (System.nanoTime() - start) / 1_000_000;
+            System.setOut(console);
+
+            start = System.nanoTime();
+            printer.writeInvoice(discard, false);
+            long streamMillis = (System.nanoTime() - start) / 1_000_000;
+
+            start = System.nanoTime();
+            printer.writeInvoice(discard, true);
+            long gzipMillis = (System.nanoTime() - start) / 1_000_000;
+
+            if (round == 2)
+                System.out.printf("%,d lines: printInvoice %,d ms, streaming %,d ms, streaming+gzip %,d ms%n",
+                        lines, printMillis, streamMillis, gzipMillis);
+        }
+    }
+}
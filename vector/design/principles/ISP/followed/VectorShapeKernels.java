@@ -0,0 +1,46 @@
+package design.principles.ISP.followed;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+// ShapeKernels on the JDK Vector API: each loop handles SPECIES.length() shapes per step (8 doubles with AVX-512,
+// 4 with AVX2) and finishes the remainder one shape at a time. Loaded by ShapeKernels.load(); see there.
+final class VectorShapeKernels implements ShapeKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector " + SPECIES.vectorBitSize() + "-bit";
+    }
+
+    @Override
+    public void multiply(double[] a, double[] b, double[] out, int offset, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length())
+            DoubleVector.fromArray(SPECIES, a, i).mul(DoubleVector.fromArray(SPECIES, b, i)).intoArray(out, offset + i);
+        for (; i < n; i++)
+            out[offset + i] = a[i] * b[i];
+    }
+
+    @Override
+    public void scaledSquare(double factor, double[] side, double[] out, int offset, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector s = DoubleVector.fromArray(SPECIES, side, i);
+            s.mul(factor).mul(s).intoArray(out, offset + i);
+        }
+        for (; i < n; i++)
+            out[offset + i] = factor * side[i] * side[i];
+    }
+
+    @Override
+    public void cube(double[] side, double[] out, int offset, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            DoubleVector s = DoubleVector.fromArray(SPECIES, side, i);
+            s.mul(s).mul(s).intoArray(out, offset + i);
+        }
+        for (; i < n; i++)
+            out[offset + i] = side[i] * side[i] * side[i];
+    }
+}